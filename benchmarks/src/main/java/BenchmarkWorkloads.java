@@ -0,0 +1,221 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Synthetic calendars and the operations measured by the JMH benchmarks.
+ *
+ * The app classes live in the default package, which a packaged class cannot
+ * import, and JMH does not accept benchmarks in the default package. So this
+ * class (also in the default package) builds the workloads and hands them to
+ * benchmarks.CalendarBenchmarks as plain Suppliers, looked up by name.
+ */
+public class BenchmarkWorkloads {
+
+    private static final String[] TITLES = { "Lecture", "Team meeting", "Gym", "Lunch", "Math revision",
+            "Project sync", "Badminton", "Lab session", "Dinner", "Study group" };
+    private static final String[] WORDS = { "room", "bring", "laptop", "notes", "chapter", "report",
+            "court", "online", "weekly", "draft" };
+    private static final String[] CATEGORIES = { "Work", "Personal", "Sport", "Study", "Other" };
+    private static final String[] PRIORITIES = { "High", "Medium", "Low" };
+
+    /**
+     * Build a calendar with the given number of events and return every
+     * benchmarked operation on it, keyed by name.
+     * FileManager reads and writes under a fresh temporary data/ folder.
+     */
+    public static Map<String, Supplier<Object>> create(int size) throws IOException {
+        // FileManager resolves data/ against user.dir when the class is first used
+        Path root = Files.createTempDirectory("calendar-bench");
+        Files.createDirectories(root.resolve("data"));
+        System.setProperty("user.dir", root.toString());
+
+        List<Event> events = generateEvents(size, 42L);
+        Map<Integer, AdditionalFields> fields = generateAdditionalFields(events, 42L);
+        AdditionalFieldsIndex fieldsIndex = new AdditionalFieldsIndex(fields);
+        FileManager.saveEvents(events); // snapshot for loadEvents
+        File binary = root.resolve("data").resolve("bench.bin").toFile();
+        BinarySnapshot.write(binary, events);
+
+        // Indexes, filled the same way EventStore fills them
+        EventIntervalTree timeIndex = new EventIntervalTree();
+        KeywordIndex keywordIndex = new KeywordIndex();
+        TreeMap<LocalDate, List<Event>> dateIndex = new TreeMap<>();
+        for (Event e : events) {
+            timeIndex.insert(e);
+            keywordIndex.add(e);
+            dateIndex.computeIfAbsent(e.getStart().toLocalDate(), k -> new ArrayList<>()).add(e);
+        }
+        for (List<Event> day : dateIndex.values()) {
+            day.sort((e1, e2) -> e1.getStart().compareTo(e2.getStart()));
+        }
+
+        LocalDateTime first = events.get(0).getStart();
+        LocalDateTime slotStart = first.plusDays(30).withHour(10).withMinute(0);
+        LocalDateTime slotEnd = slotStart.plusHours(1);
+        LocalDate rangeStart = first.toLocalDate().plusDays(30);
+        LocalDate rangeEnd = rangeStart.plusDays(6);
+
+        // A daily series with one occurrence per event in the calendar
+        Recurrence daily = new Recurrence(Recurrence.Frequency.DAILY, 1, first.plusDays(size - 1L));
+        LocalDateTime windowStart = first.plusDays(size / 2);
+        LocalDateTime windowEnd = windowStart.plusDays(31);
+
+        // A weekday series with the same span, expanded by the RRULE engine (BYDAY)
+        Recurrence weekdays = new Recurrence(Recurrence.Frequency.WEEKLY, 1, first.plusDays(size - 1L));
+        weekdays.applyRuleParts("BYDAY=MO,TU,WE,TH,FR");
+
+        // 1000 long-running series (daily/weekly/monthly) for the recurring conflict check
+        List<Event> series = generateSeries(1000, first, 42L);
+        LocalDateTime seriesSlotStart = first.plusYears(3).withHour(3).withMinute(0);
+        LocalDateTime seriesSlotEnd = seriesSlotStart.plusMinutes(10);
+
+        // The store itself, for the start-time index (upcoming events)
+        EventStore store = new EventStore();
+        store.replaceAll(events);
+        LocalDateTime upcomingFrom = first.plusDays(30);
+
+        Map<String, Supplier<Object>> ops = new LinkedHashMap<>();
+
+        // FileManager
+        ops.put("loadEvents", FileManager::loadEvents);
+        ops.put("saveEvents", () -> {
+            try {
+                FileManager.saveEvents(events);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+        ops.put("loadBinarySnapshot", () -> {
+            try {
+                BinarySnapshot snapshot = BinarySnapshot.open(binary);
+                List<Event> loaded = new ArrayList<>(snapshot.size());
+                for (int i = 0; i < snapshot.size(); i++) loaded.add(snapshot.eventAt(i));
+                return loaded;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        ops.put("loadCompactSnapshot", () -> {
+            try {
+                return CompactEventStore.of(BinarySnapshot.open(binary)); // columns only, no Event objects
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        ops.put("writeBinarySnapshot", () -> {
+            try {
+                BinarySnapshot.write(binary, events);
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        // SearchUtils: list scans and their indexed counterparts
+        ops.put("searchByKeyword", () -> SearchUtils.searchByKeyword(events, "revision"));
+        ops.put("searchByKeywordIndexed", () -> SearchUtils.searchByKeyword(keywordIndex, "revision"));
+        ops.put("searchByDateRange", () -> SearchUtils.searchByDateRange(events, rangeStart, rangeEnd));
+        ops.put("searchByDateRangeIndexed", () -> SearchUtils.searchByDateRange(dateIndex, rangeStart, rangeEnd));
+        ops.put("searchByAdditionalFields", () -> SearchUtils.searchByAdditionalFields(events, fields, "room 1"));
+        ops.put("searchByAdditionalFieldsIndexed", () -> SearchUtils.searchByAdditionalFields(events, fieldsIndex, "room 1"));
+        ops.put("isTimeSlotFree", () -> SearchUtils.isTimeSlotFree(events, slotStart, slotEnd));
+        ops.put("isTimeSlotFreeIndexed", () -> SearchUtils.isTimeSlotFree(timeIndex, slotStart, slotEnd));
+        ops.put("isTimeSlotFreeRecurring", () -> SearchUtils.isTimeSlotFree(series, seriesSlotStart, seriesSlotEnd));
+        ops.put("startingBetween", () -> store.startingBetween(upcomingFrom, upcomingFrom.plusDays(1)));
+        ops.put("nextEvents", () -> store.nextEvents(upcomingFrom, 10));
+
+        // Recurrence
+        ops.put("generateOccurrences", () -> daily.generateOccurrences(first));
+        ops.put("occurrencesBetween", () -> daily.occurrencesBetween(first, windowStart, windowEnd).count());
+        ops.put("occurrenceCount", () -> daily.occurrenceCount(first));
+        ops.put("nextOccurrenceAfter", () -> daily.nextOccurrenceAfter(first, windowStart));
+        ops.put("occurrencesBetweenByDay", () -> weekdays.occurrencesBetween(first, windowStart, windowEnd).count());
+
+        // analytics
+        ops.put("busiestDayOfWeek", () -> analytics.busiestDayOfWeek(events));
+        ops.put("busiestHour", () -> analytics.busiestHour(events));
+        ops.put("busiestMonth", () -> analytics.busiestMonth(events));
+        ops.put("averageEventsPerWeek", () -> analytics.averageEventsPerWeek(events));
+        ops.put("longestEvent", () -> analytics.longestEvent(events));
+        ops.put("countRecurringVsSingle", () -> analytics.countRecurringVsSingle(events));
+        ops.put("averageEventDuration", () -> analytics.averageEventDuration(events));
+        ops.put("eventsByCategory", () -> analytics.eventsByCategory(events, fields));
+        ops.put("eventsByPriority", () -> analytics.eventsByPriority(events, fields));
+        ops.put("eventsByCategoryIndexed", () -> analytics.eventsByCategory(events, fieldsIndex));
+        ops.put("eventsByPriorityIndexed", () -> analytics.eventsByPriority(events, fieldsIndex));
+        ops.put("upcomingVsPastEvents", () -> analytics.upcomingVsPastEvents(events));
+        ops.put("eventsByTimeOfDay", () -> analytics.eventsByTimeOfDay(events));
+        ops.put("analyticsSnapshot", () -> AnalyticsSnapshot.compute(events, fields));
+
+        System.out.println("Benchmark calendar: " + size + " events under " + root + File.separator + "data");
+        return ops;
+    }
+
+    /**
+     * Events spread over roughly 8 per day, starting at whole quarter hours
+     */
+    static List<Event> generateEvents(int size, long seed) {
+        Random random = new Random(seed);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        int days = Math.max(1, size / 8);
+
+        List<Event> events = new ArrayList<>(size);
+        for (int id = 1; id <= size; id++) {
+            LocalDateTime start = base.plusDays(random.nextInt(days))
+                    .plusMinutes(15L * random.nextInt(96));
+            LocalDateTime end = start.plusMinutes(30L + 15L * random.nextInt(8));
+            String title = TITLES[random.nextInt(TITLES.length)];
+            String description = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            int reminder = random.nextInt(4) == 0 ? 30 : 0;
+            events.add(new Event(id, title, description, start, end, reminder));
+        }
+        return events;
+    }
+
+    /**
+     * Recurring series running for ten years, at random times between 06:00 and 22:00
+     */
+    static List<Event> generateSeries(int count, LocalDateTime first, long seed) {
+        Random random = new Random(seed);
+        Recurrence.Frequency[] frequencies = { Recurrence.Frequency.DAILY, Recurrence.Frequency.WEEKLY, Recurrence.Frequency.MONTHLY };
+        List<Event> series = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            LocalDateTime start = first.plusDays(random.nextInt(60)).withHour(6 + random.nextInt(16)).withMinute(0);
+            Event e = new Event(id, TITLES[random.nextInt(TITLES.length)], "series", start, start.plusHours(1), 0);
+            e.setRecurrence(new Recurrence(frequencies[random.nextInt(frequencies.length)],
+                    1 + random.nextInt(3), start.plusYears(10)));
+            series.add(e);
+        }
+        return series;
+    }
+
+    /**
+     * Additional fields for about two thirds of the events
+     */
+    static Map<Integer, AdditionalFields> generateAdditionalFields(List<Event> events, long seed) {
+        Random random = new Random(seed);
+        Map<Integer, AdditionalFields> fields = new HashMap<>();
+        for (Event e : events) {
+            if (random.nextInt(3) == 0) continue;
+            fields.put(e.getId(), new AdditionalFields(e.getId(),
+                    "Room " + random.nextInt(50),
+                    CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    PRIORITIES[random.nextInt(PRIORITIES.length)]));
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,30 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar: runs JMH with the usual command-line options
+ * and always adds the GC profiler, so every result also reports the
+ * allocation rate (gc.alloc.rate.norm = bytes allocated per operation).
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(cmd);
+        if (cmd.getIncludes().isEmpty()) {
+            builder.include(CalendarBenchmarks.class.getSimpleName());
+        }
+        builder.addProfiler(GCProfiler.class);
+
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,305 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the hot paths of the calendar: loading/saving events,
+ * searching, recurrence expansion and every analytics method, at 1k, 100k
+ * and 1M synthetic events. Each operation is built by the default-package
+ * BenchmarkWorkloads class (see there for why).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+public class CalendarBenchmarks {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int events;
+
+    private Supplier<Object> loadEvents;
+    private Supplier<Object> saveEvents;
+    private Supplier<Object> loadBinarySnapshot;
+    private Supplier<Object> loadCompactSnapshot;
+    private Supplier<Object> writeBinarySnapshot;
+    private Supplier<Object> searchByKeyword;
+    private Supplier<Object> searchByKeywordIndexed;
+    private Supplier<Object> searchByDateRange;
+    private Supplier<Object> searchByDateRangeIndexed;
+    private Supplier<Object> searchByAdditionalFields;
+    private Supplier<Object> searchByAdditionalFieldsIndexed;
+    private Supplier<Object> isTimeSlotFree;
+    private Supplier<Object> isTimeSlotFreeIndexed;
+    private Supplier<Object> isTimeSlotFreeRecurring;
+    private Supplier<Object> startingBetween;
+    private Supplier<Object> nextEvents;
+    private Supplier<Object> generateOccurrences;
+    private Supplier<Object> occurrencesBetween;
+    private Supplier<Object> occurrenceCount;
+    private Supplier<Object> nextOccurrenceAfter;
+    private Supplier<Object> occurrencesBetweenByDay;
+    private Supplier<Object> busiestDayOfWeek;
+    private Supplier<Object> busiestHour;
+    private Supplier<Object> busiestMonth;
+    private Supplier<Object> averageEventsPerWeek;
+    private Supplier<Object> longestEvent;
+    private Supplier<Object> countRecurringVsSingle;
+    private Supplier<Object> averageEventDuration;
+    private Supplier<Object> eventsByCategory;
+    private Supplier<Object> eventsByPriority;
+    private Supplier<Object> eventsByCategoryIndexed;
+    private Supplier<Object> eventsByPriorityIndexed;
+    private Supplier<Object> upcomingVsPastEvents;
+    private Supplier<Object> eventsByTimeOfDay;
+    private Supplier<Object> analyticsSnapshot;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        Map<String, Supplier<Object>> ops = (Map<String, Supplier<Object>>) Class.forName("BenchmarkWorkloads")
+                .getMethod("create", int.class)
+                .invoke(null, events);
+
+        loadEvents = op(ops, "loadEvents");
+        saveEvents = op(ops, "saveEvents");
+        loadBinarySnapshot = op(ops, "loadBinarySnapshot");
+        loadCompactSnapshot = op(ops, "loadCompactSnapshot");
+        writeBinarySnapshot = op(ops, "writeBinarySnapshot");
+        searchByKeyword = op(ops, "searchByKeyword");
+        searchByKeywordIndexed = op(ops, "searchByKeywordIndexed");
+        searchByDateRange = op(ops, "searchByDateRange");
+        searchByDateRangeIndexed = op(ops, "searchByDateRangeIndexed");
+        searchByAdditionalFields = op(ops, "searchByAdditionalFields");
+        searchByAdditionalFieldsIndexed = op(ops, "searchByAdditionalFieldsIndexed");
+        isTimeSlotFree = op(ops, "isTimeSlotFree");
+        isTimeSlotFreeIndexed = op(ops, "isTimeSlotFreeIndexed");
+        isTimeSlotFreeRecurring = op(ops, "isTimeSlotFreeRecurring");
+        startingBetween = op(ops, "startingBetween");
+        nextEvents = op(ops, "nextEvents");
+        generateOccurrences = op(ops, "generateOccurrences");
+        occurrencesBetween = op(ops, "occurrencesBetween");
+        occurrenceCount = op(ops, "occurrenceCount");
+        nextOccurrenceAfter = op(ops, "nextOccurrenceAfter");
+        occurrencesBetweenByDay = op(ops, "occurrencesBetweenByDay");
+        busiestDayOfWeek = op(ops, "busiestDayOfWeek");
+        busiestHour = op(ops, "busiestHour");
+        busiestMonth = op(ops, "busiestMonth");
+        averageEventsPerWeek = op(ops, "averageEventsPerWeek");
+        longestEvent = op(ops, "longestEvent");
+        countRecurringVsSingle = op(ops, "countRecurringVsSingle");
+        averageEventDuration = op(ops, "averageEventDuration");
+        eventsByCategory = op(ops, "eventsByCategory");
+        eventsByPriority = op(ops, "eventsByPriority");
+        eventsByCategoryIndexed = op(ops, "eventsByCategoryIndexed");
+        eventsByPriorityIndexed = op(ops, "eventsByPriorityIndexed");
+        upcomingVsPastEvents = op(ops, "upcomingVsPastEvents");
+        eventsByTimeOfDay = op(ops, "eventsByTimeOfDay");
+        analyticsSnapshot = op(ops, "analyticsSnapshot");
+    }
+
+    private static Supplier<Object> op(Map<String, Supplier<Object>> ops, String name) {
+        Supplier<Object> op = ops.get(name);
+        if (op == null) throw new IllegalStateException("No benchmark workload named " + name);
+        return op;
+    }
+
+    // ================== FileManager ==================
+
+    @Benchmark
+    public Object loadEvents() {
+        return loadEvents.get();
+    }
+
+    @Benchmark
+    public Object saveEvents() {
+        return saveEvents.get();
+    }
+
+    @Benchmark
+    public Object loadBinarySnapshot() {
+        return loadBinarySnapshot.get();
+    }
+
+    @Benchmark
+    public Object loadCompactSnapshot() {
+        return loadCompactSnapshot.get();
+    }
+
+    @Benchmark
+    public Object writeBinarySnapshot() {
+        return writeBinarySnapshot.get();
+    }
+
+    // ================== SearchUtils (list scan vs. index) ==================
+
+    @Benchmark
+    public Object searchByKeyword() {
+        return searchByKeyword.get();
+    }
+
+    @Benchmark
+    public Object searchByKeywordIndexed() {
+        return searchByKeywordIndexed.get();
+    }
+
+    @Benchmark
+    public Object searchByDateRange() {
+        return searchByDateRange.get();
+    }
+
+    @Benchmark
+    public Object searchByDateRangeIndexed() {
+        return searchByDateRangeIndexed.get();
+    }
+
+    @Benchmark
+    public Object searchByAdditionalFields() {
+        return searchByAdditionalFields.get();
+    }
+
+    @Benchmark
+    public Object searchByAdditionalFieldsIndexed() {
+        return searchByAdditionalFieldsIndexed.get();
+    }
+
+    @Benchmark
+    public Object isTimeSlotFree() {
+        return isTimeSlotFree.get();
+    }
+
+    @Benchmark
+    public Object isTimeSlotFreeIndexed() {
+        return isTimeSlotFreeIndexed.get();
+    }
+
+    @Benchmark
+    public Object isTimeSlotFreeRecurring() {
+        return isTimeSlotFreeRecurring.get();
+    }
+
+    @Benchmark
+    public Object startingBetween() {
+        return startingBetween.get();
+    }
+
+    @Benchmark
+    public Object nextEvents() {
+        return nextEvents.get();
+    }
+
+    // ================== Recurrence ==================
+
+    @Benchmark
+    public Object generateOccurrences() {
+        return generateOccurrences.get();
+    }
+
+    @Benchmark
+    public Object occurrencesBetween() {
+        return occurrencesBetween.get();
+    }
+
+    @Benchmark
+    public Object occurrenceCount() {
+        return occurrenceCount.get();
+    }
+
+    @Benchmark
+    public Object nextOccurrenceAfter() {
+        return nextOccurrenceAfter.get();
+    }
+
+    @Benchmark
+    public Object occurrencesBetweenByDay() {
+        return occurrencesBetweenByDay.get();
+    }
+
+    // ================== analytics ==================
+
+    @Benchmark
+    public Object busiestDayOfWeek() {
+        return busiestDayOfWeek.get();
+    }
+
+    @Benchmark
+    public Object busiestHour() {
+        return busiestHour.get();
+    }
+
+    @Benchmark
+    public Object busiestMonth() {
+        return busiestMonth.get();
+    }
+
+    @Benchmark
+    public Object averageEventsPerWeek() {
+        return averageEventsPerWeek.get();
+    }
+
+    @Benchmark
+    public Object longestEvent() {
+        return longestEvent.get();
+    }
+
+    @Benchmark
+    public Object countRecurringVsSingle() {
+        return countRecurringVsSingle.get();
+    }
+
+    @Benchmark
+    public Object averageEventDuration() {
+        return averageEventDuration.get();
+    }
+
+    @Benchmark
+    public Object eventsByCategory() {
+        return eventsByCategory.get();
+    }
+
+    @Benchmark
+    public Object eventsByPriority() {
+        return eventsByPriority.get();
+    }
+
+    @Benchmark
+    public Object eventsByCategoryIndexed() {
+        return eventsByCategoryIndexed.get();
+    }
+
+    @Benchmark
+    public Object eventsByPriorityIndexed() {
+        return eventsByPriorityIndexed.get();
+    }
+
+    @Benchmark
+    public Object upcomingVsPastEvents() {
+        return upcomingVsPastEvents.get();
+    }
+
+    @Benchmark
+    public Object eventsByTimeOfDay() {
+        return eventsByTimeOfDay.get();
+    }
+
+    @Benchmark
+    public Object analyticsSnapshot() {
+        return analyticsSnapshot.get();
+    }
+}
@@ -1,18 +1,86 @@
 /**
  * AdditionalFields holds custom fields for events
  * Stored separately in additional.csv
+ *
+ * Category and priority normally come from the fixed lists offered by the
+ * GUI, so they are also kept as enum codes (null for anything else, e.g. a
+ * category typed into an older file). All texts are shared through StringPool,
+ * so 100k events in "Work" don't hold 100k copies of "Work".
  */
 public class AdditionalFields {
+
+    /** The categories offered by the GUI */
+    public enum Category {
+        WORK("Work"), PERSONAL("Personal"), SPORT("Sport"), STUDY("Study"), OTHER("Other");
+
+        private final String label;
+        private final String lowerLabel;
+
+        Category(String label) {
+            this.label = label;
+            this.lowerLabel = label.toLowerCase();
+        }
+
+        public String label() {
+            return label;
+        }
+
+        /** Label in lower case (for case-insensitive search without converting every time) */
+        public String lowerLabel() {
+            return lowerLabel;
+        }
+
+        /** The category with this label (in any case), or null if there is none */
+        public static Category fromLabel(String text) {
+            for (Category c : values()) {
+                if (c.label.equalsIgnoreCase(text)) return c;
+            }
+            return null;
+        }
+    }
+
+    /** The priorities offered by the GUI */
+    public enum Priority {
+        HIGH("High"), MEDIUM("Medium"), LOW("Low");
+
+        private final String label;
+        private final String lowerLabel;
+
+        Priority(String label) {
+            this.label = label;
+            this.lowerLabel = label.toLowerCase();
+        }
+
+        public String label() {
+            return label;
+        }
+
+        /** Label in lower case (for case-insensitive search without converting every time) */
+        public String lowerLabel() {
+            return lowerLabel;
+        }
+
+        /** The priority with this label (in any case), or null if there is none */
+        public static Priority fromLabel(String text) {
+            for (Priority p : values()) {
+                if (p.label.equalsIgnoreCase(text)) return p;
+            }
+            return null;
+        }
+    }
+
     private int eventId;
     private String location;      // field1: Event location
     private String category;      // field2: Event category (Work, Personal, Sport, etc.)
     private String priority;      // field3: Priority (High, Medium, Low)
+    private Category categoryCode; // category as a code, null if it is not one of Category
+    private Priority priorityCode; // priority as a code, null if it is not one of Priority
 
     public AdditionalFields(int eventId, String location, String category, String priority) {
         this.eventId = eventId;
-        this.location = location != null ? location : "";
-        this.category = category != null ? category : "";
-        this.priority = priority != null ? priority : "";
+        setLocation(location);
+        setCategory(category);
+        setPriority(priority);
     }
 
     // Getters
@@ -32,21 +100,34 @@ public class AdditionalFields {
         return priority;
     }
 
+    public Category getCategoryCode() {
+        return categoryCode;
+    }
+
+    public Priority getPriorityCode() {
+        return priorityCode;
+    }
+
     // Setters
     public void setEventId(int eventId) {
         this.eventId = eventId;
     }
 
     public void setLocation(String location) {
-        this.location = location != null ? location : "";
+        this.location = location != null ? StringPool.intern(location) : "";
     }
 
     public void setCategory(String category) {
-        this.category = category != null ? category : "";
+        this.categoryCode = Category.fromLabel(category);
+        // The standard spelling shares the enum's label; anything else goes through the pool
+        this.category = categoryCode != null && categoryCode.label.equals(category) ? categoryCode.label
+                : category != null ? StringPool.intern(category) : "";
     }
 
     public void setPriority(String priority) {
-        this.priority = priority != null ? priority : "";
+        this.priorityCode = Priority.fromLabel(priority);
+        this.priority = priorityCode != null && priorityCode.label.equals(priority) ? priorityCode.label
+                : priority != null ? StringPool.intern(priority) : "";
     }
 
     /**
@@ -64,13 +145,24 @@ public class AdditionalFields {
      * Create from CSV line with proper parsing
      */
     public static AdditionalFields fromCsvLine(String csvLine) {
-        String[] parts = parseCsvLine(csvLine);
-        if (parts.length >= 4) {
+        try (CsvRecordReader csv = CsvRecordReader.forLine(csvLine)) {
+            return csv.next() ? fromRecord(csv) : null;
+        } catch (java.io.IOException e) {
+            return null; // can't happen when reading from a String
+        }
+    }
+
+    /**
+     * Create from the current record of a CsvRecordReader
+     * (fields: eventId,location,category,priority)
+     */
+    public static AdditionalFields fromRecord(CsvRecordReader csv) {
+        if (csv.fieldCount() >= 4) {
             try {
-                int id = Integer.parseInt(parts[0].trim());
-                String loc = parts[1].trim();
-                String cat = parts[2].trim();
-                String pri = parts[3].trim();
+                int id = csv.getInt(0);
+                String loc = csv.getString(1);
+                String cat = csv.getString(2);
+                String pri = csv.getString(3);
                 return new AdditionalFields(id, loc, cat, pri);
             } catch (NumberFormatException e) {
                 System.out.println("Error parsing additional fields: " + e.getMessage());
@@ -87,16 +179,4 @@ public class AdditionalFields {
         if (field == null) return "";
         return field.replace(",", ";;");
     }
-    
-    /**
-     * Parse CSV line handling escaped commas
-     */
-    private static String[] parseCsvLine(String csvLine) {
-        String[] parts = csvLine.split(",");
-        // Restore commas that were escaped
-        for (int i = 0; i < parts.length; i++) {
-            parts[i] = parts[i].replace(";;", ",");
-        }
-        return parts;
-    }
 }
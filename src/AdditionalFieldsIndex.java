@@ -0,0 +1,219 @@
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AdditionalFieldsIndex holds the additional fields of every event
+ * (event id -> AdditionalFields) together with three secondary indexes:
+ *   category  exact text         -> ids of the events in it
+ *   priority  exact text         -> ids
+ *   location  lower-case text    -> ids ("Room A" and "room a" are one bucket)
+ * Each bucket is a BitSet of event ids plus its size, so "how many are in
+ * Work" is a lookup and "which are in Work" touches only that bucket.
+ * The BitSets can be and()-ed with each other and with the ids of a date or
+ * keyword search (SearchUtils.idsOf) to combine filters.
+ *
+ * Event ids are expected to be >= 0 (EventStore hands them out from 1);
+ * fields of a negative id are kept but not indexed.
+ *
+ * Reads of single fields (get, asMap) don't lock; changes and bucket
+ * reads are synchronized, so the GUI and the background threads can share it.
+ */
+public class AdditionalFieldsIndex {
+
+    /** The ids in one category/priority/location, and how many there are */
+    private static class Bucket {
+        final String lowerKey; // for keyword search
+        final BitSet ids = new BitSet();
+        int count;
+
+        Bucket(String key) {
+            this.lowerKey = key.toLowerCase();
+        }
+    }
+
+    private final Map<Integer, AdditionalFields> fields = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> byCategory = new HashMap<>();
+    private final Map<String, Bucket> byPriority = new HashMap<>();
+    private final Map<String, Bucket> byLocation = new HashMap<>();
+
+    public AdditionalFieldsIndex() {
+    }
+
+    public AdditionalFieldsIndex(Map<Integer, AdditionalFields> initial) {
+        replaceAll(initial);
+    }
+
+    // ================== Changes ==================
+
+    /** Set the fields of an event (replacing what it had) */
+    public synchronized void put(int eventId, AdditionalFields value) {
+        AdditionalFields old = fields.put(eventId, value);
+        if (old != null) unindex(eventId, old);
+        index(eventId, value);
+    }
+
+    /** @return the fields the event had, or null */
+    public synchronized AdditionalFields remove(int eventId) {
+        AdditionalFields old = fields.remove(eventId);
+        if (old != null) unindex(eventId, old);
+        return old;
+    }
+
+    /** Replace everything (e.g. after restoring a backup) */
+    public synchronized void replaceAll(Map<Integer, AdditionalFields> newFields) {
+        fields.clear();
+        byCategory.clear();
+        byPriority.clear();
+        byLocation.clear();
+        for (Map.Entry<Integer, AdditionalFields> entry : newFields.entrySet()) {
+            fields.put(entry.getKey(), entry.getValue());
+            index(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // ================== Reads ==================
+
+    public AdditionalFields get(int eventId) {
+        return fields.get(eventId);
+    }
+
+    public int size() {
+        return fields.size();
+    }
+
+    /** Read-only view of event id -> fields (for saving, and code that takes a Map) */
+    public Map<Integer, AdditionalFields> asMap() {
+        return Collections.unmodifiableMap(fields);
+    }
+
+    /** Ids of the events with this category (exact text), a copy the caller may change */
+    public synchronized BitSet withCategory(String category) {
+        return idsOf(byCategory.get(category));
+    }
+
+    /** Ids of the events with this priority (exact text) */
+    public synchronized BitSet withPriority(String priority) {
+        return idsOf(byPriority.get(priority));
+    }
+
+    /** Ids of the events at this location (case-insensitive) */
+    public synchronized BitSet atLocation(String location) {
+        return location == null ? new BitSet() : idsOf(byLocation.get(location.toLowerCase()));
+    }
+
+    public synchronized int categoryCount(String category) {
+        Bucket bucket = byCategory.get(category);
+        return bucket == null ? 0 : bucket.count;
+    }
+
+    public synchronized int priorityCount(String priority) {
+        Bucket bucket = byPriority.get(priority);
+        return bucket == null ? 0 : bucket.count;
+    }
+
+    /** category -> number of events with it (events without a category are not counted) */
+    public synchronized Map<String, Integer> categoryCounts() {
+        return counts(byCategory);
+    }
+
+    /** priority -> number of events with it (events without a priority are not counted) */
+    public synchronized Map<String, Integer> priorityCounts() {
+        return counts(byPriority);
+    }
+
+    /**
+     * Ids of the events whose location, category or priority contains the
+     * keyword (case-insensitive). Only the distinct values are compared,
+     * not every event.
+     */
+    public synchronized BitSet matching(String keyword) {
+        String lowerKeyword = keyword.toLowerCase();
+        BitSet result = new BitSet();
+        if (lowerKeyword.isEmpty()) { // "" is in every text, even an empty one
+            for (Integer id : fields.keySet()) {
+                if (id >= 0) result.set(id);
+            }
+            return result;
+        }
+        addMatching(byCategory, lowerKeyword, result);
+        addMatching(byPriority, lowerKeyword, result);
+        addMatching(byLocation, lowerKeyword, result);
+        return result;
+    }
+
+    /**
+     * category -> number of events with it among the given ids (by BitSet
+     * intersection, one per category)
+     */
+    public synchronized Map<String, Integer> categoryCounts(BitSet ids) {
+        return counts(byCategory, ids);
+    }
+
+    /** priority -> number of events with it among the given ids */
+    public synchronized Map<String, Integer> priorityCounts(BitSet ids) {
+        return counts(byPriority, ids);
+    }
+
+    // ================== Internals ==================
+
+    private void index(int eventId, AdditionalFields value) {
+        if (eventId < 0) return;
+        add(byCategory, value.getCategory(), eventId);
+        add(byPriority, value.getPriority(), eventId);
+        add(byLocation, value.getLocation() == null ? null : value.getLocation().toLowerCase(), eventId);
+    }
+
+    private void unindex(int eventId, AdditionalFields value) {
+        if (eventId < 0) return;
+        remove(byCategory, value.getCategory(), eventId);
+        remove(byPriority, value.getPriority(), eventId);
+        remove(byLocation, value.getLocation() == null ? null : value.getLocation().toLowerCase(), eventId);
+    }
+
+    private static void add(Map<String, Bucket> buckets, String key, int eventId) {
+        if (key == null || key.isEmpty()) return;
+        Bucket bucket = buckets.computeIfAbsent(key, Bucket::new);
+        if (!bucket.ids.get(eventId)) {
+            bucket.ids.set(eventId);
+            bucket.count++;
+        }
+    }
+
+    private static void remove(Map<String, Bucket> buckets, String key, int eventId) {
+        if (key == null || key.isEmpty()) return;
+        Bucket bucket = buckets.get(key);
+        if (bucket == null || !bucket.ids.get(eventId)) return;
+        bucket.ids.clear(eventId);
+        if (--bucket.count == 0) buckets.remove(key);
+    }
+
+    private static BitSet idsOf(Bucket bucket) {
+        return bucket == null ? new BitSet() : (BitSet) bucket.ids.clone();
+    }
+
+    private static Map<String, Integer> counts(Map<String, Bucket> buckets) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) counts.put(entry.getKey(), entry.getValue().count);
+        return counts;
+    }
+
+    private static Map<String, Integer> counts(Map<String, Bucket> buckets, BitSet ids) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            BitSet common = (BitSet) entry.getValue().ids.clone();
+            common.and(ids);
+            int count = common.cardinality();
+            if (count > 0) counts.put(entry.getKey(), count);
+        }
+        return counts;
+    }
+
+    private static void addMatching(Map<String, Bucket> buckets, String lowerKeyword, BitSet result) {
+        for (Bucket bucket : buckets.values()) {
+            if (bucket.lowerKey.contains(lowerKeyword)) result.or(bucket.ids);
+        }
+    }
+}
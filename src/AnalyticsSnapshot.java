@@ -0,0 +1,321 @@
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * AnalyticsSnapshot collects every statistic shown on the analytics screen
+ * in a single pass over the events, using plain int/long counters.
+ * Two snapshots of different parts of the list can be merged, so very large
+ * calendars are split into chunks and counted in parallel (fork/join).
+ *
+ * A recurring event is stored once as a series, but counts once per
+ * occurrence here (like the materialized occurrence rows used to), so the
+ * totals, busiest day/hour/month, averages and upcoming/past stay the same
+ * as when every occurrence was its own event. seriesCount() tells how many
+ * series there are.
+ */
+public class AnalyticsSnapshot {
+
+    /** Lists larger than this are counted in parallel chunks */
+    private static final int PARALLEL_THRESHOLD = 50_000;
+
+    private static final String[] TIME_OF_DAY = {
+        "Morning (6-12)", "Afternoon (12-18)", "Evening (18-22)", "Night (22-6)"
+    };
+
+    private final LocalDateTime now;          // reference time for upcoming vs past
+
+    private int totalEvents = 0;              // events and occurrences, including events without dates
+    private final int[] byDayOfWeek = new int[7];
+    private final int[] byHour = new int[24];
+    private final int[] byMonth = new int[12];
+    private final int[] byTimeOfDay = new int[4];
+    private LocalDateTime firstStart = null;
+    private LocalDateTime lastStart = null;
+
+    private long totalDurationMinutes = 0;
+    private int durationCount = 0;
+    private Event longest = null;
+    private long longestMinutes = -1;
+
+    private int recurring = 0;                // occurrences of series
+    private int single = 0;
+    private int series = 0;
+    private int upcoming = 0;
+    private int past = 0;
+
+    // int[1] holders so counting doesn't box a new Integer per event
+    private final Map<String, int[]> byCategory = new HashMap<>();
+    private final Map<String, int[]> byPriority = new HashMap<>();
+
+    private AnalyticsSnapshot(LocalDateTime now) {
+        this.now = now;
+    }
+
+    /**
+     * Compute all statistics for the events (in parallel for very large lists)
+     * @param events List of all events
+     * @param additionalFieldsMap Additional fields by event id (may be null)
+     */
+    public static AnalyticsSnapshot compute(List<Event> events, Map<Integer, AdditionalFields> additionalFieldsMap) {
+        LocalDateTime now = LocalDateTime.now();
+        if (events == null) return new AnalyticsSnapshot(now);
+        if (events.size() < PARALLEL_THRESHOLD) {
+            return computeRange(events, additionalFieldsMap, now, 0, events.size());
+        }
+        return ForkJoinPool.commonPool().invoke(new ChunkTask(events, additionalFieldsMap, now, 0, events.size()));
+    }
+
+    /** Count events[from, to) sequentially */
+    private static AnalyticsSnapshot computeRange(List<Event> events, Map<Integer, AdditionalFields> fieldsMap,
+                                                  LocalDateTime now, int from, int to) {
+        AnalyticsSnapshot s = new AnalyticsSnapshot(now);
+        for (int i = from; i < to; i++) {
+            s.add(events.get(i), fieldsMap);
+        }
+        return s;
+    }
+
+    /** Splits the list in halves until chunks are small enough, then merges the results */
+    private static class ChunkTask extends RecursiveTask<AnalyticsSnapshot> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Event> events;
+        private final Map<Integer, AdditionalFields> fieldsMap;
+        private final LocalDateTime now;
+        private final int from, to;
+
+        ChunkTask(List<Event> events, Map<Integer, AdditionalFields> fieldsMap, LocalDateTime now, int from, int to) {
+            this.events = events;
+            this.fieldsMap = fieldsMap;
+            this.now = now;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected AnalyticsSnapshot compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return computeRange(events, fieldsMap, now, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(events, fieldsMap, now, from, mid);
+            left.fork();
+            AnalyticsSnapshot right = new ChunkTask(events, fieldsMap, now, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /** Add one event (every occurrence of a series) to every counter */
+    private void add(Event e, Map<Integer, AdditionalFields> fieldsMap) {
+        if (e == null) {
+            totalEvents++;
+            return;
+        }
+        Recurrence recurrence = e.getRecurrence();
+        if (recurrence == null || !recurrence.isRecurring()) {
+            add(e, e.getStart(), e.getEnd(), false, fieldsMap);
+            return;
+        }
+
+        series++;
+        if (e.getStart() == null) { // can't be expanded: counts as one
+            add(e, null, e.getEnd(), true, fieldsMap);
+            return;
+        }
+        java.time.Duration length = e.getEnd() == null ? null : java.time.Duration.between(e.getStart(), e.getEnd());
+        RecurrenceIterator occurrences = recurrence.iterator(e.getStart());
+        while (occurrences.hasNext()) {
+            LocalDateTime start = occurrences.next();
+            add(e, start, length == null ? null : start.plus(length), true, fieldsMap);
+        }
+    }
+
+    /** Add one event or occurrence (start/end of that occurrence) to every counter */
+    private void add(Event e, LocalDateTime start, LocalDateTime end, boolean occurrence,
+                     Map<Integer, AdditionalFields> fieldsMap) {
+        totalEvents++;
+        if (occurrence) recurring++;
+        else single++;
+
+        if (fieldsMap != null) {
+            AdditionalFields fields = fieldsMap.get(e.getId());
+            String category = (fields != null && fields.getCategory() != null && !fields.getCategory().isEmpty())
+                ? fields.getCategory() : "No Category";
+            String priority = (fields != null && fields.getPriority() != null && !fields.getPriority().isEmpty())
+                ? fields.getPriority() : "No Priority";
+            byCategory.computeIfAbsent(category, k -> new int[1])[0]++;
+            byPriority.computeIfAbsent(priority, k -> new int[1])[0]++;
+        }
+
+        if (start == null) return;
+
+        int hour = start.getHour();
+        byDayOfWeek[start.getDayOfWeek().getValue() - 1]++;
+        byHour[hour]++;
+        byMonth[start.getMonthValue() - 1]++;
+        byTimeOfDay[timeOfDaySlot(hour)]++;
+
+        if (firstStart == null || start.isBefore(firstStart)) firstStart = start;
+        if (lastStart == null || start.isAfter(lastStart)) lastStart = start;
+
+        if (start.isAfter(now)) upcoming++;
+        else past++;
+
+        if (end != null) {
+            long mins = ChronoUnit.MINUTES.between(start, end);
+            totalDurationMinutes += mins;
+            durationCount++;
+            if (mins > longestMinutes) { longestMinutes = mins; longest = e; }
+        }
+    }
+
+    private static int timeOfDaySlot(int hour) {
+        if (hour >= 6 && hour < 12) return 0;
+        if (hour >= 12 && hour < 18) return 1;
+        if (hour >= 18 && hour < 22) return 2;
+        return 3;
+    }
+
+    /**
+     * Combine another snapshot (of a later part of the same list) into this one
+     * @return this snapshot
+     */
+    public AnalyticsSnapshot merge(AnalyticsSnapshot other) {
+        totalEvents += other.totalEvents;
+        for (int i = 0; i < byDayOfWeek.length; i++) byDayOfWeek[i] += other.byDayOfWeek[i];
+        for (int i = 0; i < byHour.length; i++) byHour[i] += other.byHour[i];
+        for (int i = 0; i < byMonth.length; i++) byMonth[i] += other.byMonth[i];
+        for (int i = 0; i < byTimeOfDay.length; i++) byTimeOfDay[i] += other.byTimeOfDay[i];
+
+        if (other.firstStart != null && (firstStart == null || other.firstStart.isBefore(firstStart))) firstStart = other.firstStart;
+        if (other.lastStart != null && (lastStart == null || other.lastStart.isAfter(lastStart))) lastStart = other.lastStart;
+
+        totalDurationMinutes += other.totalDurationMinutes;
+        durationCount += other.durationCount;
+        // Strictly greater keeps the earlier event on ties, like a sequential pass
+        if (other.longestMinutes > longestMinutes) { longestMinutes = other.longestMinutes; longest = other.longest; }
+
+        recurring += other.recurring;
+        single += other.single;
+        series += other.series;
+        upcoming += other.upcoming;
+        past += other.past;
+
+        for (Map.Entry<String, int[]> ent : other.byCategory.entrySet()) {
+            byCategory.computeIfAbsent(ent.getKey(), k -> new int[1])[0] += ent.getValue()[0];
+        }
+        for (Map.Entry<String, int[]> ent : other.byPriority.entrySet()) {
+            byPriority.computeIfAbsent(ent.getKey(), k -> new int[1])[0] += ent.getValue()[0];
+        }
+        return this;
+    }
+
+    // ================== Results ==================
+
+    public int getTotalEvents() {
+        return totalEvents;
+    }
+
+    /** Day of the week with the most events, or null if none */
+    public DayOfWeek busiestDayOfWeek() {
+        int best = argMax(byDayOfWeek);
+        return best < 0 ? null : DayOfWeek.of(best + 1);
+    }
+
+    /** Busiest hour (0-23) by start time, or -1 if none */
+    public int busiestHour() {
+        return argMax(byHour);
+    }
+
+    /** Busiest month, or null if none */
+    public Month busiestMonth() {
+        int best = argMax(byMonth);
+        return best < 0 ? null : Month.of(best + 1);
+    }
+
+    /** Average events per week over the period covered by events */
+    public double averageEventsPerWeek() {
+        if (totalEvents == 0 || firstStart == null) return 0.0;
+        long days = ChronoUnit.DAYS.between(firstStart, lastStart) + 1;
+        double weeks = Math.max(1.0, days / 7.0);
+        return totalEvents / weeks;
+    }
+
+    /** Average event duration in minutes */
+    public double averageEventDuration() {
+        return durationCount > 0 ? (double) totalDurationMinutes / durationCount : 0.0;
+    }
+
+    /** Longest event by duration, or null if none */
+    public Event longestEvent() {
+        return longest;
+    }
+
+    /** Duration of the longest event in minutes (-1 if none) */
+    public long longestEventMinutes() {
+        return longestMinutes;
+    }
+
+    /** Occurrences of recurring series */
+    public int recurringCount() {
+        return recurring;
+    }
+
+    /** Number of recurring series (each counted once) */
+    public int seriesCount() {
+        return series;
+    }
+
+    public int singleCount() {
+        return single;
+    }
+
+    public int upcomingCount() {
+        return upcoming;
+    }
+
+    public int pastCount() {
+        return past;
+    }
+
+    /** Distribution of events by time of day (morning, afternoon, evening, night) */
+    public Map<String, Integer> eventsByTimeOfDay() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int i = 0; i < TIME_OF_DAY.length; i++) counts.put(TIME_OF_DAY[i], byTimeOfDay[i]);
+        return counts;
+    }
+
+    /** Count events by category ("No Category" when none is set) */
+    public Map<String, Integer> eventsByCategory() {
+        return toCounts(byCategory);
+    }
+
+    /** Count events by priority ("No Priority" when none is set) */
+    public Map<String, Integer> eventsByPriority() {
+        return toCounts(byPriority);
+    }
+
+    private static Map<String, Integer> toCounts(Map<String, int[]> holders) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map.Entry<String, int[]> ent : holders.entrySet()) counts.put(ent.getKey(), ent.getValue()[0]);
+        return counts;
+    }
+
+    /** Index of the largest count (first one on ties), or -1 if all are zero */
+    private int argMax(int[] counts) {
+        if (firstStart == null) return -1; // no event has a start time
+        int best = -1, bestCount = -1;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > bestCount) { bestCount = counts[i]; best = i; }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,248 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * AtomicFile replaces a data file so that a crash never leaves it half written:
+ *   1. the new content goes to a temp file next to it and is forced to disk (FileChannel.force)
+ *   2. its checksum goes to "<file>.crc.tmp", also forced
+ *   3. both are moved over the old files with ATOMIC_MOVE
+ * After a crash the file is either the complete old version or the complete new one.
+ *
+ * The checksum file ("<file>.crc": CRC-32C and length) lets the loader notice a
+ * file that was damaged on disk (see verify). Files without one (written by
+ * older versions) are trusted.
+ *
+ * Usage:
+ *   AtomicFile.write(file, out -> out.write(bytes));
+ *   AtomicFile.writeLines(file, writer -> { writer.write("..."); writer.newLine(); });
+ */
+public class AtomicFile {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String CHECKSUM_SUFFIX = ".crc";
+
+    /** Writes the new content of a file */
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /** Writes the new content of a text file (default charset, like FileWriter) */
+    public interface TextContent {
+        void writeTo(BufferedWriter writer) throws IOException;
+    }
+
+    /**
+     * A new version that has been written and synced but not installed yet
+     * (e.g. journal compaction decides afterwards whether it may replace the file)
+     */
+    public static class Pending {
+        private final File target;
+        private final File temp;
+        private final String checksum;
+
+        private Pending(File target, File temp, String checksum) {
+            this.target = target;
+            this.temp = temp;
+            this.checksum = checksum;
+        }
+
+        /** Move the new version over the file */
+        public void commit() throws IOException {
+            synchronized (AtomicFile.class) { // the .crc.tmp name is shared
+                install();
+            }
+        }
+
+        private void install() throws IOException {
+            File checksumFile = checksumFile(target);
+            File checksumTemp = new File(checksumFile.getPath() + TEMP_SUFFIX);
+            writeSynced(checksumTemp, out -> out.write(checksum.getBytes(StandardCharsets.US_ASCII)));
+
+            move(temp, target);
+            // A crash right here leaves the old .crc next to the new file;
+            // verify() then finds the matching one in .crc.tmp
+            move(checksumTemp, checksumFile);
+            syncDirectory(target.getAbsoluteFile().getParentFile());
+        }
+
+        /** Throw the new version away */
+        public void discard() {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Replace a file atomically
+     * @throws IOException if writing failed (the old file is then left untouched)
+     */
+    public static void write(File target, Content content) throws IOException {
+        prepare(target, content).commit();
+    }
+
+    /** Replace a text file atomically */
+    public static void writeLines(File target, TextContent content) throws IOException {
+        write(target, out -> {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out));
+            content.writeTo(writer);
+            writer.flush();
+        });
+    }
+
+    /**
+     * Write and sync the new version of a file without installing it yet
+     * @throws IOException if writing failed (nothing is left behind)
+     */
+    public static Pending prepare(File target, Content content) throws IOException {
+        // Unique temp name: a full save and a journal compaction may write the same file at once
+        File temp = File.createTempFile(target.getName() + ".", TEMP_SUFFIX, target.getAbsoluteFile().getParentFile());
+        try {
+            String checksum = writeSynced(temp, content);
+            return new Pending(target, temp, checksum);
+        } catch (IOException | RuntimeException e) {
+            temp.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Check a file against its checksum file
+     * @return true if it matches, or if the file has no checksum file
+     */
+    public static boolean verify(File file) {
+        File checksumFile = checksumFile(file);
+        if (!checksumFile.exists()) return true;
+        try {
+            String actual = checksumOf(file);
+            if (actual.equals(readChecksum(checksumFile))) return true;
+
+            // Crash between the two moves in commit(): the new checksum is still in .crc.tmp
+            File checksumTemp = new File(checksumFile.getPath() + TEMP_SUFFIX);
+            if (checksumTemp.exists() && actual.equals(readChecksum(checksumTemp))) {
+                move(checksumTemp, checksumFile);
+                return true;
+            }
+            return false;
+        } catch (IOException e) {
+            System.out.println("Error checking " + file.getName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Remove the checksum file of a file that is about to be appended to
+     * (e.g. a log); without one, the file is trusted from then on
+     */
+    public static void dropChecksum(File file) {
+        File checksumFile = checksumFile(file);
+        if (checksumFile.exists()) checksumFile.delete();
+    }
+
+    /**
+     * Cut a file that is appended to line by line (a log) back to its last
+     * complete line. A crash in the middle of an append can leave a line
+     * without its newline; the next append would then be glued onto it and
+     * both records would be lost.
+     * @return number of bytes cut off (0 if the file ends with a newline)
+     */
+    public static long cutTornTail(File file) throws IOException {
+        if (!file.exists()) return 0;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long length = raf.length();
+            if (length == 0) return 0;
+            raf.seek(length - 1);
+            if (raf.read() == '\n') return 0;
+
+            // Look backwards for the last newline, a block at a time
+            byte[] block = new byte[4096];
+            long end = length;
+            long keep = 0;
+            search:
+            while (end > 0) {
+                int n = (int) Math.min(block.length, end);
+                raf.seek(end - n);
+                raf.readFully(block, 0, n);
+                for (int i = n - 1; i >= 0; i--) {
+                    if (block[i] == '\n') {
+                        keep = end - n + i + 1;
+                        break search;
+                    }
+                }
+                end -= n;
+            }
+            raf.setLength(keep);
+            raf.getFD().sync();
+            return length - keep;
+        }
+    }
+
+    // ================== Internals ==================
+
+    private static File checksumFile(File file) {
+        return new File(file.getPath() + CHECKSUM_SUFFIX);
+    }
+
+    /** Write a file, force it to disk and return its checksum line */
+    private static String writeSynced(File file, Content content) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileOutputStream fileOut = new FileOutputStream(file)) {
+            CheckedOutputStream out = new CheckedOutputStream(fileOut, crc);
+            content.writeTo(out);
+            out.flush();
+            fileOut.getChannel().force(true);
+        }
+        return checksumLine(crc.getValue(), file.length());
+    }
+
+    private static String checksumOf(File file) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        return checksumLine(crc.getValue(), file.length());
+    }
+
+    private static String checksumLine(long crc, long length) {
+        return "crc32c " + Long.toHexString(crc) + " " + length;
+    }
+
+    private static String readChecksum(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII).trim();
+    }
+
+    private static void move(File from, File to) throws IOException {
+        try {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Make the renames themselves durable (not possible on every platform, e.g. Windows) */
+    private static void syncDirectory(File dir) {
+        if (dir == null) return;
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // best effort
+        }
+    }
+}
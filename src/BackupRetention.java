@@ -0,0 +1,133 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * BackupRetention decides which backups to keep as they get older
+ * (default: one per hour for a day, one per day for 30 days, one per month forever).
+ *
+ * - younger than keepHourly: the newest backup of each hour stays as it is
+ * - younger than keepDaily:  the newest backup of each day stays as it is
+ * - older:                   the newest backup of each month is moved into
+ *                            a ZIP archive; if keepMonths > 0, months older
+ *                            than that are dropped as well
+ * Everything else is deleted. The newest backup of each kind ("event-backup-",
+ * "additional-backup-") is always kept.
+ *
+ * The time of a backup comes from its name ("event-backup-20260104-020357.csv").
+ * Backups whose name has no time are never touched.
+ *
+ * Settings can be changed with system properties:
+ *   -Dcalendar.backup.hourlyHours=24 -Dcalendar.backup.dailyDays=30 -Dcalendar.backup.monthlyMonths=0
+ */
+public class BackupRetention {
+
+    public enum Action { KEEP, ARCHIVE, DELETE }
+
+    private static final DateTimeFormatter NAME_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String MARKER = "-backup-";
+
+    private final Duration keepHourly;
+    private final Duration keepDaily;
+    private final int keepMonths; // 0 = forever
+
+    /**
+     * @param keepHourly how long to keep one backup per hour
+     * @param keepDaily how long to keep one backup per day (counted from now, like keepHourly)
+     * @param keepMonths how many months of monthly archives to keep (0 = forever)
+     */
+    public BackupRetention(Duration keepHourly, Duration keepDaily, int keepMonths) {
+        this.keepHourly = keepHourly;
+        this.keepDaily = keepDaily;
+        this.keepMonths = keepMonths;
+    }
+
+    /** The policy set by the calendar.backup.* system properties (or the defaults) */
+    public static BackupRetention fromSystemProperties() {
+        return new BackupRetention(
+                Duration.ofHours(Long.getLong("calendar.backup.hourlyHours", 24)),
+                Duration.ofDays(Long.getLong("calendar.backup.dailyDays", 30)),
+                Integer.getInteger("calendar.backup.monthlyMonths", 0));
+    }
+
+    /**
+     * Decide what happens to every backup
+     * @param names backup names
+     * @param now current time
+     * @return name -> action, for every name
+     */
+    public Map<String, Action> plan(List<String> names, LocalDateTime now) {
+        List<String> newestFirst = new ArrayList<>(names);
+        newestFirst.sort((a, b) -> compareNames(b, a));
+
+        Map<String, Action> plan = new LinkedHashMap<>();
+        Set<String> filledBuckets = new HashSet<>();
+        Set<String> seenKinds = new HashSet<>();
+        YearMonth oldestMonth = keepMonths > 0 ? YearMonth.from(now).minusMonths(keepMonths - 1) : null;
+
+        for (String name : newestFirst) {
+            LocalDateTime time = timeOf(name);
+            if (time == null) {
+                plan.put(name, Action.KEEP);
+                continue;
+            }
+            String kind = name.substring(0, name.indexOf(MARKER));
+            if (seenKinds.add(kind)) {
+                plan.put(name, Action.KEEP); // newest of its kind
+                continue;
+            }
+
+            Duration age = Duration.between(time, now);
+            String bucket;
+            Action action;
+            if (age.compareTo(keepHourly) < 0) {
+                bucket = kind + "/hour/" + time.toLocalDate() + "T" + time.getHour();
+                action = Action.KEEP;
+            } else if (age.compareTo(keepDaily) < 0) {
+                bucket = kind + "/day/" + time.toLocalDate();
+                action = Action.KEEP;
+            } else {
+                YearMonth month = YearMonth.from(time);
+                bucket = kind + "/month/" + month;
+                action = oldestMonth == null || !month.isBefore(oldestMonth) ? Action.ARCHIVE : Action.DELETE;
+            }
+            // Going newest first, the first backup of a bucket is the one to keep
+            plan.put(name, filledBuckets.add(bucket) ? action : Action.DELETE);
+        }
+        return plan;
+    }
+
+    /**
+     * Time in a backup name ("event-backup-20260104-020357-2.csv"), or null if it has none
+     */
+    public static LocalDateTime timeOf(String name) {
+        int start = name.indexOf(MARKER);
+        if (start < 0 || name.length() < start + MARKER.length() + 15) return null;
+        start += MARKER.length();
+        try {
+            return LocalDateTime.parse(name.substring(start, start + 15), NAME_TIME);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /** Order backup names by their time ("...-2.csv" after ".csv"), then by name */
+    public static int compareNames(String a, String b) {
+        int byTime = stamp(a).compareTo(stamp(b));
+        return byTime != 0 ? byTime : a.compareTo(b);
+    }
+
+    private static String stamp(String name) {
+        int start = name.indexOf(MARKER);
+        String stamp = start < 0 ? name : name.substring(start + MARKER.length());
+        return stamp.endsWith(".csv") ? stamp.substring(0, stamp.length() - 4) : stamp;
+    }
+}
@@ -0,0 +1,485 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * BackupStore keeps backups in data/backups as content-addressed chunks
+ * instead of one full copy per backup.
+ *
+ * - A backup's text is cut into chunks at line boundaries. Where a chunk ends
+ *   depends only on the lines themselves, so an edit changes just the chunks
+ *   around it and the rest match the previous backup.
+ * - Each chunk is stored once, gzipped, as chunks/<sha-256 of its text>.
+ *   Chunks that already exist (from any earlier backup) are not written again.
+ * - manifest.csv lists every chunked backup: name, hash of the whole text,
+ *   size and its chunk hashes in order. Any backup can be rebuilt from it.
+ * - If the text is the same as the newest backup of that kind, nothing is
+ *   stored at all.
+ *
+ * index.csv is the small list of all backups (name, hash, where it is:
+ * "chunks", an archive-yyyy-MM.zip, or "file" for an older plain .csv copy).
+ * Listing and restoring only read the index, never the directory.
+ * applyRetention (see BackupRetention) moves old backups into the monthly
+ * ZIP archives and deletes the ones that are no longer needed.
+ */
+public class BackupStore {
+
+    private static final String MANIFEST_NAME = "manifest.csv";
+    private static final String INDEX_NAME = "index.csv";
+    private static final String CHUNKS_DIR = "chunks";
+
+    // Where a backup is stored (third column of index.csv), besides an archive name
+    private static final String IN_CHUNKS = "chunks";
+    private static final String PLAIN_FILE = "file";
+
+    // A chunk ends after a line whose hash has these low bits all zero
+    // (about 32 lines per chunk), or when it gets too long
+    private static final int CHUNK_MASK = 0x1F;
+    private static final int MAX_CHUNK_BYTES = 64 * 1024;
+
+    private final File dir;
+    private final File chunksDir;
+    private final File manifestFile;
+    private final File indexFile;
+
+    /** One line of the manifest */
+    private static class Entry {
+        final String name;
+        final String hash;
+        final long size;
+        final List<String> chunks;
+
+        Entry(String name, String hash, long size, List<String> chunks) {
+            this.name = name;
+            this.hash = hash;
+            this.size = size;
+            this.chunks = chunks;
+        }
+
+        String toLine() {
+            return name + "," + hash + "," + size + "," + String.join(" ", chunks);
+        }
+    }
+
+    /** One line of the index */
+    private static class IndexEntry {
+        final String name;
+        final String hash;
+        final String where;
+
+        IndexEntry(String name, String hash, String where) {
+            this.name = name;
+            this.hash = hash;
+            this.where = where;
+        }
+
+        String toLine() {
+            return name + "," + hash + "," + where;
+        }
+    }
+
+    public BackupStore(File dir) {
+        this.dir = dir;
+        this.chunksDir = new File(dir, CHUNKS_DIR);
+        this.manifestFile = new File(dir, MANIFEST_NAME);
+        this.indexFile = new File(dir, INDEX_NAME);
+    }
+
+    /**
+     * Store a backup unless its text equals the newest backup whose name starts with prefix.
+     * @param prefix kind of backup, e.g. "event-backup-"
+     * @param name name for the new backup (made unique if already taken)
+     * @return the name of the new backup, or of the unchanged one it matched
+     * @throws IOException if a chunk or the manifest can't be written
+     */
+    public synchronized String store(String prefix, String name, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        String hash = sha256(bytes, 0, bytes.length);
+
+        Map<String, IndexEntry> index = readIndex();
+        IndexEntry latest = null;
+        for (IndexEntry entry : index.values()) {
+            if (entry.name.startsWith(prefix)) latest = entry; // index is in time order
+        }
+        if (latest != null && latest.hash.equals(hash)) {
+            return latest.name;
+        }
+
+        if (!chunksDir.exists() && !chunksDir.mkdirs()) {
+            throw new IOException("Could not create backups directory: " + chunksDir.getPath());
+        }
+
+        // Chunks first, then the manifest and index lines: a crash in between only leaves unused chunks
+        List<String> chunks = new ArrayList<>();
+        int chunkStart = 0;
+        int lineHash = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            lineHash = lineHash * 31 + bytes[i];
+            boolean endOfLine = bytes[i] == '\n';
+            if ((endOfLine && (mix(lineHash) & CHUNK_MASK) == 0)
+                    || i + 1 - chunkStart >= MAX_CHUNK_BYTES || i + 1 == bytes.length) {
+                chunks.add(writeChunk(bytes, chunkStart, i + 1));
+                chunkStart = i + 1;
+            }
+            if (endOfLine) lineHash = 0;
+        }
+
+        String unique = name;
+        for (int n = 2; index.containsKey(unique) || new File(dir, unique).exists(); n++) {
+            unique = withSuffix(name, n);
+        }
+
+        appendLine(manifestFile, new Entry(unique, hash, bytes.length, chunks).toLine());
+        appendLine(indexFile, new IndexEntry(unique, hash, IN_CHUNKS).toLine());
+        return unique;
+    }
+
+    /** True if the index has a backup with this name */
+    public synchronized boolean contains(String name) throws IOException {
+        return readIndex().containsKey(name);
+    }
+
+    /** Names of all backups, oldest first */
+    public synchronized List<String> names() throws IOException {
+        return new ArrayList<>(readIndex().keySet());
+    }
+
+    /**
+     * Rebuild the text of a backup (from its chunks, its archive or its file)
+     * @throws IOException if the backup is unknown or its data is missing or damaged
+     */
+    public synchronized String read(String name) throws IOException {
+        IndexEntry entry = readIndex().get(name);
+        if (entry == null) {
+            throw new IOException("Backup not found: " + name);
+        }
+        return read(entry);
+    }
+
+    /**
+     * Apply a retention policy: archive or delete backups the policy no longer keeps
+     * as they are, then drop chunks that no backup uses any more.
+     * @return number of backups archived or deleted
+     */
+    public synchronized int applyRetention(BackupRetention policy, LocalDateTime now) throws IOException {
+        Map<String, IndexEntry> index = readIndex();
+        Map<String, BackupRetention.Action> plan = policy.plan(new ArrayList<>(index.keySet()), now);
+
+        // 1. Work out the new index and what each archive gains or loses
+        Map<String, IndexEntry> newIndex = new LinkedHashMap<>();
+        Map<String, Map<String, byte[]>> archiveAdds = new LinkedHashMap<>();
+        Map<String, Set<String>> archiveRemoves = new LinkedHashMap<>();
+        List<File> filesToDelete = new ArrayList<>();
+        int changed = 0;
+        for (IndexEntry entry : index.values()) {
+            BackupRetention.Action action = plan.get(entry.name);
+            boolean archived = isArchive(entry.where);
+            if (action == BackupRetention.Action.KEEP || (action == BackupRetention.Action.ARCHIVE && archived)) {
+                newIndex.put(entry.name, entry);
+                continue;
+            }
+
+            changed++;
+            if (action == BackupRetention.Action.ARCHIVE) {
+                byte[] bytes = read(entry).getBytes(StandardCharsets.UTF_8);
+                String archive = archiveName(BackupRetention.timeOf(entry.name));
+                archiveAdds.computeIfAbsent(archive, k -> new LinkedHashMap<>()).put(entry.name, bytes);
+                newIndex.put(entry.name, new IndexEntry(entry.name, sha256(bytes, 0, bytes.length), archive));
+            } else if (archived) {
+                archiveRemoves.computeIfAbsent(entry.where, k -> new HashSet<>()).add(entry.name);
+            }
+            if (PLAIN_FILE.equals(entry.where)) filesToDelete.add(new File(dir, entry.name));
+        }
+        if (changed == 0) return 0;
+
+        // 2. Write archives, then the index and manifest, and only then delete old data
+        Set<String> archives = new HashSet<>(archiveAdds.keySet());
+        archives.addAll(archiveRemoves.keySet());
+        for (String archive : archives) {
+            rewriteArchive(new File(dir, archive),
+                    archiveAdds.getOrDefault(archive, new LinkedHashMap<>()),
+                    archiveRemoves.getOrDefault(archive, new HashSet<>()));
+        }
+
+        List<String> indexLines = new ArrayList<>();
+        for (IndexEntry entry : newIndex.values()) indexLines.add(entry.toLine());
+        writeLines(indexFile, indexLines);
+
+        List<String> manifestLines = new ArrayList<>();
+        Set<String> usedChunks = new HashSet<>();
+        for (Entry entry : readManifest().values()) {
+            IndexEntry indexed = newIndex.get(entry.name);
+            if (indexed != null && IN_CHUNKS.equals(indexed.where)) {
+                manifestLines.add(entry.toLine());
+                usedChunks.addAll(entry.chunks);
+            }
+        }
+        writeLines(manifestFile, manifestLines);
+
+        for (File file : filesToDelete) file.delete();
+        String[] chunkFiles = chunksDir.list();
+        if (chunkFiles != null) {
+            for (String chunk : chunkFiles) {
+                if (!usedChunks.contains(chunk)) new File(chunksDir, chunk).delete();
+            }
+        }
+        return changed;
+    }
+
+    // ================== Internals ==================
+
+    private String read(IndexEntry entry) throws IOException {
+        byte[] bytes;
+        Charset charset = StandardCharsets.UTF_8;
+        if (IN_CHUNKS.equals(entry.where)) {
+            bytes = readChunked(entry.name);
+        } else if (PLAIN_FILE.equals(entry.where)) {
+            bytes = Files.readAllBytes(new File(dir, entry.name).toPath());
+            charset = Charset.defaultCharset(); // written with FileWriter
+        } else {
+            bytes = readArchived(new File(dir, entry.where), entry.name);
+        }
+        if (!sha256(bytes, 0, bytes.length).equals(entry.hash)) {
+            throw new IOException("Backup does not match its index: " + entry.name);
+        }
+        return new String(bytes, charset);
+    }
+
+    private byte[] readChunked(String name) throws IOException {
+        Entry entry = readManifest().get(name);
+        if (entry == null) {
+            throw new IOException("Backup is missing from the manifest: " + name);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) entry.size);
+        for (String chunk : entry.chunks) {
+            byte[] data = readChunk(chunk);
+            if (!sha256(data, 0, data.length).equals(chunk)) {
+                throw new IOException("Backup chunk is damaged: " + chunk);
+            }
+            out.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] readArchived(File archive, String name) throws IOException {
+        try (ZipFile zip = new ZipFile(archive)) {
+            ZipEntry entry = zip.getEntry(name);
+            if (entry == null) {
+                throw new IOException("Backup is missing from " + archive.getName() + ": " + name);
+            }
+            try (InputStream in = zip.getInputStream(entry)) {
+                return in.readAllBytes();
+            }
+        }
+    }
+
+    /** Copy an archive with some entries added and some left out (deleted if it ends up empty) */
+    private static void rewriteArchive(File archive, Map<String, byte[]> adds, Set<String> removes) throws IOException {
+        File tmp = new File(archive.getPath() + ".tmp");
+        int entries = 0;
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(tmp))) {
+            if (archive.exists()) {
+                try (ZipFile zip = new ZipFile(archive)) {
+                    Enumeration<? extends ZipEntry> existing = zip.entries();
+                    while (existing.hasMoreElements()) {
+                        ZipEntry entry = existing.nextElement();
+                        if (removes.contains(entry.getName()) || adds.containsKey(entry.getName())) continue;
+                        out.putNextEntry(new ZipEntry(entry.getName()));
+                        try (InputStream in = zip.getInputStream(entry)) {
+                            in.transferTo(out);
+                        }
+                        out.closeEntry();
+                        entries++;
+                    }
+                }
+            }
+            for (Map.Entry<String, byte[]> add : adds.entrySet()) {
+                out.putNextEntry(new ZipEntry(add.getKey()));
+                out.write(add.getValue());
+                out.closeEntry();
+                entries++;
+            }
+        }
+        if (entries == 0) {
+            tmp.delete();
+            archive.delete();
+        } else {
+            Files.move(tmp.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String archiveName(LocalDateTime time) {
+        return "archive-" + YearMonth.from(time) + ".zip";
+    }
+
+    private static boolean isArchive(String where) {
+        return where.endsWith(".zip");
+    }
+
+    /** name -> index entry, oldest first (built once from the manifest and old .csv files if missing) */
+    private Map<String, IndexEntry> readIndex() throws IOException {
+        Map<String, IndexEntry> index = new LinkedHashMap<>();
+        if (!indexFile.exists()) {
+            return buildIndex();
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(indexFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",", -1);
+                if (parts.length != 3) continue; // torn last line
+                index.put(parts[0], new IndexEntry(parts[0], parts[1], parts[2]));
+            }
+        }
+        return index;
+    }
+
+    private Map<String, IndexEntry> buildIndex() throws IOException {
+        List<IndexEntry> entries = new ArrayList<>();
+        for (Entry entry : readManifest().values()) {
+            entries.add(new IndexEntry(entry.name, entry.hash, IN_CHUNKS));
+        }
+        String[] files = dir.list((d, name) -> name.endsWith(".csv") && !name.equals(MANIFEST_NAME) && !name.equals(INDEX_NAME));
+        if (files != null) {
+            for (String name : files) {
+                byte[] bytes = Files.readAllBytes(new File(dir, name).toPath());
+                entries.add(new IndexEntry(name, sha256(bytes, 0, bytes.length), PLAIN_FILE));
+            }
+        }
+        entries.sort((a, b) -> BackupRetention.compareNames(a.name, b.name));
+
+        Map<String, IndexEntry> index = new LinkedHashMap<>();
+        List<String> lines = new ArrayList<>();
+        for (IndexEntry entry : entries) {
+            index.put(entry.name, entry);
+            lines.add(entry.toLine());
+        }
+        if (dir.exists()) writeLines(indexFile, lines);
+        return index;
+    }
+
+    /** name -> entry, in the order the backups were made */
+    private Map<String, Entry> readManifest() throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        if (!manifestFile.exists()) return entries;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(manifestFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",", -1);
+                if (parts.length != 4) continue; // torn last line
+                try {
+                    List<String> chunks = new ArrayList<>();
+                    for (String chunk : parts[3].split(" ")) {
+                        if (!chunk.isEmpty()) chunks.add(chunk);
+                    }
+                    entries.put(parts[0], new Entry(parts[0], parts[1], Long.parseLong(parts[2]), chunks));
+                } catch (NumberFormatException e) {
+                    System.out.println("Skipping bad backup manifest line: " + line);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static void appendLine(File file, String line) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, true))) {
+            writer.write(line);
+            writer.newLine();
+        }
+    }
+
+    /** Replace a file's lines (written next to it first, then renamed over it) */
+    private static void writeLines(File file, List<String> lines) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(tmp))) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Store one chunk (if it isn't stored yet) and return its hash */
+    private String writeChunk(byte[] bytes, int from, int to) throws IOException {
+        String hash = sha256(bytes, from, to - from);
+        File file = new File(chunksDir, hash);
+        if (file.exists()) return hash;
+
+        File tmp = new File(chunksDir, hash + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(tmp))) {
+            out.write(bytes, from, to - from);
+        }
+        if (!tmp.renameTo(file) && !file.exists()) {
+            throw new IOException("Could not store backup chunk: " + file.getPath());
+        }
+        return hash;
+    }
+
+    private byte[] readChunk(String hash) throws IOException {
+        File file = new File(chunksDir, hash);
+        if (!file.exists()) {
+            throw new IOException("Backup chunk is missing: " + hash);
+        }
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /** Spread the line hash so its low bits are usable for picking chunk ends */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    /** "event-backup-x.csv" -> "event-backup-x-2.csv" */
+    private static String withSuffix(String name, int n) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? name + "-" + n : name.substring(0, dot) + "-" + n + name.substring(dot);
+    }
+
+    static String sha256(byte[] bytes, int offset, int length) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(bytes, offset, length);
+            StringBuilder sb = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BinarySnapshot is the compact binary form of event.csv (data/event.bin).
+ *
+ * Layout (big-endian):
+ *   header   magic "EVB1", version, record count, heap size,
+ *            highest event id ever used (20 bytes; version 1 files have
+ *            no highest id and a 16-byte header)
+ *   records  one fixed 32-byte record per event:
+ *            id, start, end (epoch seconds, as if UTC), reminder minutes,
+ *            title offset, description offset into the string heap
+ *   heap     strings as [length][UTF-8 bytes]; equal strings are stored once
+ *
+ * Either way of opening it parses nothing up front: every accessor decodes
+ * just the bytes it needs.
+ * - open() maps the file with FileChannel.map, so not even the bytes are read.
+ *   Java can't unmap it again (it goes away when the buffer is garbage
+ *   collected), and on Windows a mapped file can't be replaced, so don't use
+ *   it on a file that will be saved over (e.g. data/event.bin of the app).
+ * - read() copies the file into memory and keeps nothing open; FileManager
+ *   uses this one.
+ * Times are stored in whole seconds (the app works in minutes).
+ */
+public class BinarySnapshot {
+
+    private static final int MAGIC = 0x45564231; // "EVB1"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 20;
+    private static final int HEADER_SIZE_V1 = 16;
+    private static final int RECORD_SIZE = 32;
+
+    // Field offsets inside a record
+    private static final int ID = 0;
+    private static final int START = 4;
+    private static final int END = 12;
+    private static final int REMINDER = 20;
+    private static final int TITLE = 24;
+    private static final int DESCRIPTION = 28;
+
+    private final ByteBuffer buffer;
+    private final int headerSize;
+    private final int count;
+    private final int heapStart;
+    private final int highestId;
+
+    private BinarySnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE_V1 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an event snapshot file");
+        }
+        int version = buffer.getInt(4);
+        if (version == 1) {
+            this.headerSize = HEADER_SIZE_V1;
+            this.highestId = 0;
+        } else if (version == VERSION && buffer.capacity() >= HEADER_SIZE) {
+            this.headerSize = HEADER_SIZE;
+            this.highestId = buffer.getInt(16);
+        } else {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        // In long: a damaged count must not overflow into a size that happens to match
+        int records = buffer.getInt(8);
+        int heapSize = buffer.getInt(12);
+        long recordsEnd = headerSize + (long) records * RECORD_SIZE;
+        if (records < 0 || heapSize < 0 || recordsEnd + heapSize != buffer.capacity()) {
+            throw new IOException("Snapshot file is truncated or damaged");
+        }
+        this.count = records;
+        this.heapStart = (int) recordsEnd;
+    }
+
+    /**
+     * Map a snapshot file into memory (nothing is decoded yet)
+     * @throws IOException if the file can't be read or is not a valid snapshot
+     */
+    public static BinarySnapshot open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new BinarySnapshot(mapped); // the mapping stays valid after the channel is closed
+        }
+    }
+
+    /**
+     * Read a snapshot file into memory (one read, nothing is decoded yet).
+     * Unlike open() no mapping is left behind, so the file can be replaced afterwards.
+     * @throws IOException if the file can't be read or is not a valid snapshot
+     */
+    public static BinarySnapshot read(File file) throws IOException {
+        return new BinarySnapshot(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Highest event id used when the snapshot was written, including ids of
+     * events deleted since (0 if the file doesn't say)
+     */
+    public int highestId() {
+        return highestId;
+    }
+
+    public int idAt(int index) {
+        return buffer.getInt(record(index) + ID);
+    }
+
+    public LocalDateTime startAt(int index) {
+        return LocalDateTime.ofEpochSecond(buffer.getLong(record(index) + START), 0, ZoneOffset.UTC);
+    }
+
+    public LocalDateTime endAt(int index) {
+        return LocalDateTime.ofEpochSecond(buffer.getLong(record(index) + END), 0, ZoneOffset.UTC);
+    }
+
+    public int reminderAt(int index) {
+        return buffer.getInt(record(index) + REMINDER);
+    }
+
+    public String titleAt(int index) {
+        return string(buffer.getInt(record(index) + TITLE));
+    }
+
+    public String descriptionAt(int index) {
+        return string(buffer.getInt(record(index) + DESCRIPTION));
+    }
+
+    // Raw fields for CompactEventStore, which copies them without making Events
+
+    long startSecondsAt(int index) {
+        return buffer.getLong(record(index) + START);
+    }
+
+    long endSecondsAt(int index) {
+        return buffer.getLong(record(index) + END);
+    }
+
+    int titleOffsetAt(int index) {
+        return buffer.getInt(record(index) + TITLE);
+    }
+
+    int descriptionOffsetAt(int index) {
+        return buffer.getInt(record(index) + DESCRIPTION);
+    }
+
+    String stringAt(int heapOffset) {
+        return string(heapOffset);
+    }
+
+    /** Decode one whole event (its texts shared with equal ones through StringPool) */
+    public Event eventAt(int index) {
+        return new Event(idAt(index), StringPool.intern(titleAt(index)), StringPool.intern(descriptionAt(index)),
+                startAt(index), endAt(index), reminderAt(index));
+    }
+
+    /**
+     * Read-only list view that decodes an event each time it is accessed
+     * (nothing is cached, so keep the events you need)
+     */
+    public List<Event> events() {
+        return new AbstractList<Event>() {
+            @Override
+            public Event get(int index) {
+                return eventAt(index);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    private int record(int index) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        return headerSize + index * RECORD_SIZE;
+    }
+
+    private String string(int offset) {
+        int pos = heapStart + offset;
+        int length = buffer.getInt(pos);
+        byte[] bytes = new byte[length];
+        buffer.get(pos + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ================== Writing ==================
+
+    /**
+     * Write events to a snapshot file (replacing it)
+     */
+    public static void write(File target, List<Event> events) throws IOException {
+        try (OutputStream out = new FileOutputStream(target)) {
+            write(out, events, 0);
+        }
+    }
+
+    /**
+     * Write events in snapshot format to a stream (left open)
+     * @param highestId highest event id used so far (the highest id of the events is stored if that is larger)
+     */
+    public static void write(OutputStream target, List<Event> events, int highestId) throws IOException {
+        // Build the string heap first so every record knows its offsets
+        ByteArrayOutputStream heapBytes = new ByteArrayOutputStream();
+        DataOutputStream heap = new DataOutputStream(heapBytes);
+        Map<String, Integer> offsets = new HashMap<>();
+        int[] titleOffsets = new int[events.size()];
+        int[] descriptionOffsets = new int[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            Event e = events.get(i);
+            titleOffsets[i] = heapOffset(e.getTitle(), offsets, heap);
+            descriptionOffsets[i] = heapOffset(e.getDescription(), offsets, heap);
+        }
+        heap.flush();
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target, 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(events.size());
+        out.writeInt(heapBytes.size());
+        int highest = highestId;
+        for (Event e : events) highest = Math.max(highest, e.getId());
+        out.writeInt(highest);
+        for (int i = 0; i < events.size(); i++) {
+            Event e = events.get(i);
+            out.writeInt(e.getId());
+            out.writeLong(e.getStart().toEpochSecond(ZoneOffset.UTC));
+            out.writeLong(e.getEnd().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(e.getReminderMinutes());
+            out.writeInt(titleOffsets[i]);
+            out.writeInt(descriptionOffsets[i]);
+        }
+        heapBytes.writeTo(out);
+        out.flush();
+    }
+
+    /** Offset of the string in the heap, appending it the first time it is seen */
+    private static int heapOffset(String text, Map<String, Integer> offsets, DataOutputStream heap) throws IOException {
+        String value = text == null ? "" : text;
+        Integer known = offsets.get(value);
+        if (known != null) return known;
+
+        int offset = heap.size();
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        heap.writeInt(bytes.length);
+        heap.write(bytes);
+        offsets.put(value, offset);
+        return offset;
+    }
+}
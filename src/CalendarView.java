@@ -8,18 +8,12 @@ public class CalendarView {
     private SchedulerApp app = new SchedulerApp();
 
     /**
-     * Generate the next sequential ID by finding the max existing ID and adding 1
+     * Generate the next sequential ID (max existing ID + 1, tracked by SchedulerApp)
      * 
      * @return Next available ID
      */
     private int generateNextId() {
-        int maxId = 0;
-        for (Event event : app.getEvents()) {
-            if (event.getId() > maxId) {
-                maxId = event.getId();
-            }
-        }
-        return maxId + 1;
+        return app.nextEventId();
     }
 
     public void showMainMenu() {
@@ -75,6 +69,7 @@ public class CalendarView {
             public void windowClosing(java.awt.event.WindowEvent e) {
                 app.stopReminderService();
                 app.stopBackupService();
+                app.stopPersistence(); // write any changes still queued
             }
         });
         frame.setVisible(true);
@@ -227,22 +222,13 @@ public class CalendarView {
             LocalDate currentDay = weekStart.plusDays(i);
             weekView.append(currentDay.format(dayFormat)).append(": ");
 
-            // Find events for this day
-            java.util.List<Event> dayEvents = new java.util.ArrayList<>();
-            for (Event event : app.getEvents()) {
-                LocalDateTime eventStart = event.getStart();
-                if (eventStart.toLocalDate().equals(currentDay)) {
-                    dayEvents.add(event);
-                }
-            }
+            // Find events for this day (already sorted by time, recurring events included)
+            java.util.List<Event> dayEvents = app.getEventsOn(currentDay);
 
             // Display events or "No events"
             if (dayEvents.isEmpty()) {
                 weekView.append("No events");
             } else {
-                // Sort events by time
-                dayEvents.sort((e1, e2) -> e1.getStart().compareTo(e2.getStart()));
-
                 for (int j = 0; j < dayEvents.size(); j++) {
                     Event evt = dayEvents.get(j);
                     if (j > 0)
@@ -408,23 +394,14 @@ public class CalendarView {
                     addRecurrenceToEvent(newEvent);
                 }
 
-                // 6. If event has recurrence, generate all occurrences and save them
+                // 6. If event has recurrence, save it once as a series
+                // (occurrences are expanded only when a view or search needs them)
                 if (newEvent.getRecurrence() != null && newEvent.getRecurrence().isRecurring()) {
-                    java.util.List<Event> recurringEvents = RecurrenceLogic.generateRecurringEvents(newEvent);
-                    // Assign sequential IDs to each recurring event occurrence
-                    int firstEventId = 0;
-                    for (Event recurEvent : recurringEvents) {
-                        int eventId = generateNextId();
-                        recurEvent.setId(eventId); // Assign proper ID
-                        if (firstEventId == 0) {
-                            firstEventId = eventId; // Save the first event ID for recurrence data
-                        }
-                        app.addEvent(recurEvent);
-                    }
-                    // Save recurrence data to recurrent.csv
-                    FileManager.saveRecurrence(firstEventId, newEvent.getRecurrence());
+                    Recurrence recurrence = newEvent.getRecurrence();
+                    long occurrenceCount = recurrence.occurrenceCount(start); // counted, not generated
+                    app.addEvent(newEvent); // also saves the rule to recurrent.csv
                     JOptionPane.showMessageDialog(null,
-                            "Recurring event created! Generated " + recurringEvents.size() + " occurrences.");
+                            "Recurring event created! It has " + occurrenceCount + " occurrences.");
                 } else {
                     // 7. Save single event via App -> FileManager
                     app.addEvent(newEvent);
@@ -439,7 +416,7 @@ public class CalendarView {
     private void addRecurrenceToEvent(Event event) {
         try {
             // Ask for recurrence type
-            String[] options = { "DAILY", "WEEKLY", "MONTHLY" };
+            String[] options = { "DAILY", "WEEKLY", "MONTHLY", "YEARLY" };
             String frequencyStr = (String) JOptionPane.showInputDialog(null,
                     "Select Recurrence Type:",
                     "Recurrence Frequency",
@@ -458,23 +435,34 @@ public class CalendarView {
 
             int interval = Integer.parseInt(intervalStr);
 
-            // Ask for end date
+            Recurrence.Frequency freq = Recurrence.Frequency.valueOf(frequencyStr);
+            Recurrence recurrence = new Recurrence(freq, interval, null);
+
+            // Optional iCalendar-style rules (e.g. last weekday of the month: BYDAY=MO,TU,WE,TH,FR;BYSETPOS=-1)
+            String ruleStr = JOptionPane.showInputDialog(
+                    "Extra rules (optional), e.g. COUNT=10;BYDAY=MO,WE or BYDAY=2MO or BYMONTHDAY=-1;EXDATE=20261225\n"
+                            + "Leave empty for none:");
+            if (ruleStr == null) return; // User cancelled
+            recurrence.applyRuleParts(ruleStr);
+
+            // Ask for end date (may be left out when COUNT ends the series)
             String endDateStr = JOptionPane.showInputDialog(
-                    "Enter End Date for recurrence (dd/mm/yyyy):");
+                    recurrence.getCount() > 0
+                            ? "Enter End Date for recurrence (dd/mm/yyyy), or leave empty to stop after "
+                                    + recurrence.getCount() + " times:"
+                            : "Enter End Date for recurrence (dd/mm/yyyy):");
             if (endDateStr == null) return; // User cancelled
 
-            String endTimeStr = JOptionPane.showInputDialog(
-                    "Enter End Time (HH:mm):");
-            if (endTimeStr == null) return; // User cancelled
-
-            // Normalize date format
-            endDateStr = endDateStr.replace("-", "/");
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-            LocalDateTime endDate = LocalDateTime.parse(endDateStr + " " + endTimeStr, formatter);
+            if (!endDateStr.trim().isEmpty() || recurrence.getCount() == 0) {
+                String endTimeStr = JOptionPane.showInputDialog(
+                        "Enter End Time (HH:mm):");
+                if (endTimeStr == null) return; // User cancelled
 
-            // Create Recurrence object
-            Recurrence.Frequency freq = Recurrence.Frequency.valueOf(frequencyStr);
-            Recurrence recurrence = new Recurrence(freq, interval, endDate);
+                // Normalize date format
+                endDateStr = endDateStr.replace("-", "/");
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+                recurrence.setEndDate(LocalDateTime.parse(endDateStr + " " + endTimeStr, formatter));
+            }
 
             // Attach to event
             event.setRecurrence(recurrence);
@@ -557,12 +545,7 @@ public class CalendarView {
         }
 
         // Find all events with this title
-        java.util.List<Event> matchingEvents = new java.util.ArrayList<>();
-        for (Event e : app.getEvents()) {
-            if (e.getTitle().equalsIgnoreCase(title)) {
-                matchingEvents.add(e);
-            }
-        }
+        java.util.List<Event> matchingEvents = app.findAllByTitle(title);
 
         if (matchingEvents.isEmpty()) {
             JOptionPane.showMessageDialog(null,
@@ -582,6 +565,7 @@ public class CalendarView {
                 Event e = matchingEvents.get(i);
                 eventOptions[i] = e.getTitle() + " - " + e.getStart().format(displayFormat) +
                                   " to " + e.getEnd().format(displayFormat);
+                if (isSeries(e)) eventOptions[i] += " (repeats " + e.getRecurrence().getFrequency().toString().toLowerCase() + ")";
             }
 
             // Create a vertical list with scroll pane
@@ -595,7 +579,7 @@ public class CalendarView {
             panel.add(scrollPane, BorderLayout.CENTER);
 
             JButton deleteSelectedBtn = new JButton("Delete Selected");
-            JButton deleteAllBtn = new JButton("Delete ALL " + matchingEvents.size() + " occurrences");
+            JButton deleteAllBtn = new JButton("Delete ALL " + matchingEvents.size() + " events");
             JButton cancelBtn = new JButton("Cancel");
 
             JPanel buttonPanel = new JPanel();
@@ -636,6 +620,10 @@ public class CalendarView {
             if (choice[0] >= 0 && choice[0] < matchingEvents.size()) {
                 // Delete the specific event selected
                 Event toDelete = matchingEvents.get(choice[0]);
+                if (isSeries(toDelete)) {
+                    deleteFromSeries(toDelete);
+                    return;
+                }
                 int confirm = JOptionPane.showConfirmDialog(null,
                         "Are you sure you want to delete this event?\n" +
                         toDelete.getTitle() + "\n" +
@@ -646,17 +634,17 @@ public class CalendarView {
                         JOptionPane.WARNING_MESSAGE);
 
                 if (confirm == JOptionPane.YES_OPTION) {
-                    app.getEvents().remove(toDelete);
-                    FileManager.saveEvents(app.getEvents());
+                    app.removeEvent(toDelete);
                     JOptionPane.showMessageDialog(null,
-                            "Event deleted successfully!\n" + (matchingEvents.size() - 1) + " occurrences remain.",
+                            "Event deleted successfully!\n" + (matchingEvents.size() - 1) + " event(s) with this title remain.",
                             "Delete Successful",
                             JOptionPane.INFORMATION_MESSAGE);
                 }
             } else if (choice[0] == matchingEvents.size()) {
                 // Delete all occurrences
                 int confirm = JOptionPane.showConfirmDialog(null,
-                        "Are you sure you want to delete ALL " + matchingEvents.size() + " occurrences of '" + title + "'?",
+                        "Are you sure you want to delete ALL " + matchingEvents.size() + " events titled '" + title + "'?\n" +
+                        "(Recurring events are deleted with all their occurrences.)",
                         "Confirm Delete All",
                         JOptionPane.YES_NO_OPTION,
                         JOptionPane.WARNING_MESSAGE);
@@ -664,7 +652,7 @@ public class CalendarView {
                 if (confirm == JOptionPane.YES_OPTION) {
                     int deleted = app.deleteAllEventsByTitle(title);
                     JOptionPane.showMessageDialog(null,
-                            "Deleted all " + deleted + " occurrences of '" + title + "'.",
+                            "Deleted all " + deleted + " events titled '" + title + "'.",
                             "Delete Successful",
                             JOptionPane.INFORMATION_MESSAGE);
                 }
@@ -673,6 +661,10 @@ public class CalendarView {
         } else {
             // Only one event with this title
             Event toDelete = matchingEvents.get(0);
+            if (isSeries(toDelete)) {
+                deleteFromSeries(toDelete);
+                return;
+            }
             DateTimeFormatter displayFormat = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
             int confirm = JOptionPane.showConfirmDialog(null,
@@ -694,6 +686,86 @@ public class CalendarView {
         }
     }
 
+    private static boolean isSeries(Event e) {
+        return e.getRecurrence() != null && e.getRecurrence().isRecurring();
+    }
+
+    /**
+     * Delete from a recurring event: either one occurrence (it becomes an
+     * exception date of the series) or the whole series
+     */
+    private void deleteFromSeries(Event series) {
+        DateTimeFormatter displayFormat = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+        String repeats = series.getRecurrence().getFrequency().toString().toLowerCase();
+        String[] options = { "This occurrence only", "Whole series", "Cancel" };
+        int choice = JOptionPane.showOptionDialog(null,
+                "'" + series.getTitle() + "' is a recurring event (repeats " + repeats + ",\n" +
+                "first on " + series.getStart().format(displayFormat) + ").\n" +
+                "Delete one occurrence or the whole series?",
+                "Delete Recurring Event",
+                JOptionPane.DEFAULT_OPTION,
+                JOptionPane.QUESTION_MESSAGE,
+                null, options, options[0]);
+
+        if (choice == 0) {
+            // Suggest the next occurrence from now on
+            LocalDateTime next = series.getRecurrence().nextOccurrenceAfter(series.getStart(), LocalDateTime.now());
+            if (next == null || !series.getStart().isBefore(LocalDateTime.now())) next = series.getStart();
+            String dateStr = JOptionPane.showInputDialog(
+                    "Date of the occurrence to delete (d/m/yyyy):",
+                    next.getDayOfMonth() + "/" + next.getMonthValue() + "/" + next.getYear());
+            if (dateStr == null) return;
+
+            LocalDate date;
+            try {
+                date = LocalDate.parse(dateStr.trim().replace("-", "/"), DateTimeFormatter.ofPattern("d/M/yyyy"));
+            } catch (Exception e) {
+                JOptionPane.showMessageDialog(null, "Invalid date format. Please use d/m/yyyy");
+                return;
+            }
+            if (!series.getRecurrence().isOccurrence(series.getStart(), date)) {
+                JOptionPane.showMessageDialog(null,
+                        "'" + series.getTitle() + "' has no occurrence on " + date + ".",
+                        "Delete Failed",
+                        JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            LocalDateTime start = date.atTime(series.getStart().toLocalTime());
+            int confirm = JOptionPane.showConfirmDialog(null,
+                    "Delete only this occurrence of the recurring event?\n" +
+                    series.getTitle() + "\n" +
+                    start.format(displayFormat) + " to " +
+                    start.plus(Duration.between(series.getStart(), series.getEnd())).format(displayFormat) + "\n" +
+                    "The other occurrences stay.",
+                    "Confirm Delete Occurrence",
+                    JOptionPane.YES_NO_OPTION,
+                    JOptionPane.WARNING_MESSAGE);
+            if (confirm == JOptionPane.YES_OPTION) {
+                app.deleteOccurrence(series, date);
+                JOptionPane.showMessageDialog(null,
+                        "The occurrence on " + date + " has been deleted.",
+                        "Delete Successful",
+                        JOptionPane.INFORMATION_MESSAGE);
+            }
+        } else if (choice == 1) {
+            int confirm = JOptionPane.showConfirmDialog(null,
+                    "Delete the WHOLE recurring series '" + series.getTitle() + "'?\n" +
+                    "Every occurrence (repeats " + repeats + ", first on " +
+                    series.getStart().format(displayFormat) + ") will be removed.",
+                    "Confirm Delete Series",
+                    JOptionPane.YES_NO_OPTION,
+                    JOptionPane.WARNING_MESSAGE);
+            if (confirm == JOptionPane.YES_OPTION) {
+                app.removeEvent(series);
+                JOptionPane.showMessageDialog(null,
+                        "The series '" + series.getTitle() + "' has been deleted.",
+                        "Delete Successful",
+                        JOptionPane.INFORMATION_MESSAGE);
+            }
+        }
+    }
+
     private void showEvents() {
         StringBuilder sb = new StringBuilder("Scheduled Events:\n");
         // Formatter to make the LocalDateTime look nice in the list
@@ -705,7 +777,11 @@ public class CalendarView {
                     .append(event.getTitle())
                     .append(" [")
                     .append(formattedDate)
-                    .append("]\n");
+                    .append("]");
+            if (event.getRecurrence() != null && event.getRecurrence().isRecurring()) {
+                sb.append(" (repeats ").append(event.getRecurrence().getFrequency().toString().toLowerCase()).append(")");
+            }
+            sb.append("\n");
         }
 
         if (app.getEvents().isEmpty()) {
@@ -747,13 +823,10 @@ public class CalendarView {
         DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("HH:mm");
         java.util.Map<Integer, java.util.List<Event>> eventsByDay = new java.util.HashMap<>();
 
-        // Group events by day
-        for (Event e : app.getEvents()) {
-            LocalDateTime start = e.getStart();
-            if (start.getYear() == year && start.getMonthValue() == month) {
-                int day = start.getDayOfMonth();
-                eventsByDay.computeIfAbsent(day, k -> new java.util.ArrayList<>()).add(e);
-            }
+        // Group events by day (only this month's occurrences of recurring events are expanded)
+        for (Event e : app.getEventsBetween(firstDay, ym.atEndOfMonth())) {
+            int day = e.getStart().getDayOfMonth();
+            eventsByDay.computeIfAbsent(day, k -> new java.util.ArrayList<>()).add(e);
         }
 
         // Fill in the days of the month
@@ -847,10 +920,7 @@ public class CalendarView {
         if (keyword == null || keyword.trim().isEmpty())
             return;
 
-        java.util.List<Event> results = SearchUtils.searchByAdditionalFields(
-                app.getEvents(),
-                app.getAllAdditionalFields(),
-                keyword);
+        java.util.List<Event> results = app.searchByAdditionalFields(keyword);
         displaySearchResults(results, "Events matching '" + keyword + "' in additional fields");
     }
 
@@ -869,7 +939,7 @@ public class CalendarView {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("d/M/yyyy");
             LocalDate searchDate = LocalDate.parse(dateStr, formatter);
 
-            java.util.List<Event> results = SearchUtils.searchByDate(app.getEvents(), searchDate);
+            java.util.List<Event> results = app.getEventsOn(searchDate);
             displaySearchResults(results, "Events on " + searchDate);
 
         } catch (Exception e) {
@@ -899,7 +969,7 @@ public class CalendarView {
                 return;
             }
 
-            java.util.List<Event> results = SearchUtils.searchByDateRange(app.getEvents(), startDate, endDate);
+            java.util.List<Event> results = app.getEventsBetween(startDate, endDate);
             displaySearchResults(results, "Events from " + startDate + " to " + endDate);
 
         } catch (Exception e) {
@@ -913,7 +983,7 @@ public class CalendarView {
         if (keyword == null || keyword.trim().isEmpty())
             return;
 
-        java.util.List<Event> results = SearchUtils.searchByKeyword(app.getEvents(), keyword);
+        java.util.List<Event> results = app.searchByKeyword(keyword);
         displaySearchResults(results, "Events matching '" + keyword + "'");
     }
 
@@ -1030,39 +1100,43 @@ public class CalendarView {
         report.append("        CALENDAR ANALYTICS & INSIGHTS       \n");
         report.append("═══════════════════════════════════════════\n\n");
 
+        // Every statistic below comes from one pass over the events
+        AnalyticsSnapshot stats = AnalyticsSnapshot.compute(events, additionalFields);
+
         // Basic Stats
         report.append("📊 BASIC STATISTICS\n");
         report.append("─────────────────────────────────────────\n");
-        report.append(String.format("Total Events: %d\n", events.size()));
+        report.append(String.format("Total Events: %d\n", stats.getTotalEvents()));
+        report.append("(a recurring event counts once per occurrence)\n");
 
         // Busiest Day
-        java.time.DayOfWeek busyDay = analytics.busiestDayOfWeek(events);
+        java.time.DayOfWeek busyDay = stats.busiestDayOfWeek();
         report.append(String.format("Busiest Day of Week: %s\n",
                 busyDay != null ? busyDay : "N/A"));
 
         // Busiest Hour
-        int busyHour = analytics.busiestHour(events);
+        int busyHour = stats.busiestHour();
         report.append(String.format("Busiest Hour: %s\n",
                 busyHour >= 0 ? String.format("%02d:00", busyHour) : "N/A"));
 
         // Busiest Month
-        java.time.Month busyMonth = analytics.busiestMonth(events);
+        java.time.Month busyMonth = stats.busiestMonth();
         report.append(String.format("Busiest Month: %s\n",
                 busyMonth != null ? busyMonth : "N/A"));
 
         // Average events per week
         report.append(String.format("Average Events per Week: %.1f\n\n",
-                analytics.averageEventsPerWeek(events)));
+                stats.averageEventsPerWeek()));
 
         // Duration Stats
         report.append("⏱️ DURATION ANALYSIS\n");
         report.append("─────────────────────────────────────────\n");
         report.append(String.format("Average Event Duration: %.1f minutes\n",
-                analytics.averageEventDuration(events)));
+                stats.averageEventDuration()));
 
-        Event longest = analytics.longestEvent(events);
+        Event longest = stats.longestEvent();
         if (longest != null) {
-            long mins = java.time.Duration.between(longest.getStart(), longest.getEnd()).toMinutes();
+            long mins = stats.longestEventMinutes();
             report.append(String.format("Longest Event: \"%s\" (%d min)\n\n",
                     longest.getTitle(), mins));
         } else {
@@ -1072,21 +1146,20 @@ public class CalendarView {
         // Recurring vs Single
         report.append("🔄 EVENT TYPES\n");
         report.append("─────────────────────────────────────────\n");
-        java.util.Map<String, Integer> recCounts = analytics.countRecurringVsSingle(events);
-        report.append(String.format("Recurring Events: %d\n", recCounts.get("recurring")));
-        report.append(String.format("Single Events: %d\n\n", recCounts.get("single")));
+        report.append(String.format("Recurring Events: %d (occurrences of %d series)\n",
+                stats.recurringCount(), stats.seriesCount()));
+        report.append(String.format("Single Events: %d\n\n", stats.singleCount()));
 
         // Upcoming vs Past
         report.append("📅 TIMELINE\n");
         report.append("─────────────────────────────────────────\n");
-        java.util.Map<String, Integer> timeline = analytics.upcomingVsPastEvents(events);
-        report.append(String.format("Upcoming Events: %d\n", timeline.get("upcoming")));
-        report.append(String.format("Past Events: %d\n\n", timeline.get("past")));
+        report.append(String.format("Upcoming Events: %d\n", stats.upcomingCount()));
+        report.append(String.format("Past Events: %d\n\n", stats.pastCount()));
 
         // Time of Day Distribution
         report.append("🌅 TIME OF DAY DISTRIBUTION\n");
         report.append("─────────────────────────────────────────\n");
-        java.util.Map<String, Integer> timeOfDay = analytics.eventsByTimeOfDay(events);
+        java.util.Map<String, Integer> timeOfDay = stats.eventsByTimeOfDay();
         for (java.util.Map.Entry<String, Integer> entry : timeOfDay.entrySet()) {
             report.append(String.format("%-20s: %d events\n", entry.getKey(), entry.getValue()));
         }
@@ -1095,7 +1168,7 @@ public class CalendarView {
         // Category Breakdown
         report.append("📂 CATEGORY BREAKDOWN\n");
         report.append("─────────────────────────────────────────\n");
-        java.util.Map<String, Integer> categories = analytics.eventsByCategory(events, additionalFields);
+        java.util.Map<String, Integer> categories = stats.eventsByCategory();
         if (categories.isEmpty()) {
             report.append("No categories assigned\n\n");
         } else {
@@ -1108,7 +1181,7 @@ public class CalendarView {
         // Priority Distribution
         report.append("⚡ PRIORITY DISTRIBUTION\n");
         report.append("─────────────────────────────────────────\n");
-        java.util.Map<String, Integer> priorities = analytics.eventsByPriority(events, additionalFields);
+        java.util.Map<String, Integer> priorities = stats.eventsByPriority();
         if (priorities.isEmpty()) {
             report.append("No priorities assigned\n");
         } else {
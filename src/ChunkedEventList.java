@@ -0,0 +1,183 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * ChunkedEventList is an immutable list of events split into chunks of at
+ * most CHUNK_SIZE. A change returns a new list that shares every chunk it
+ * didn't touch with the old one, so it copies one chunk and the small chunk
+ * table instead of the whole list (about n / CHUNK_SIZE + CHUNK_SIZE
+ * references). Old versions stay valid, which is what EventStore.snapshot()
+ * hands out.
+ *
+ * Every chunk has a key that never changes while the chunk lives (keys only
+ * grow towards the end of the list), so EventStore remembers which chunk
+ * each event is in and finds it again with a binary search instead of
+ * scanning the list.
+ */
+public final class ChunkedEventList extends AbstractList<Event> implements RandomAccess {
+
+    static final int CHUNK_SIZE = 1024;
+
+    public static final ChunkedEventList EMPTY = new ChunkedEventList(new Event[0][], new int[0], 0);
+
+    private final Event[][] chunks;
+    private final int[] keys;     // key of each chunk, ascending
+    private final int[] offsets;  // list position of the first event of each chunk
+    private final int size;
+    private final int nextKey;
+
+    private ChunkedEventList(Event[][] chunks, int[] keys, int nextKey) {
+        this.chunks = chunks;
+        this.keys = keys;
+        this.nextKey = nextKey;
+        this.offsets = new int[chunks.length];
+        int position = 0;
+        for (int c = 0; c < chunks.length; c++) {
+            offsets[c] = position;
+            position += chunks[c].length;
+        }
+        this.size = position;
+    }
+
+    /** A list of the given events, in full chunks */
+    public static ChunkedEventList of(Collection<Event> events) {
+        return EMPTY.withAll(events);
+    }
+
+    // ================== Changes (each returns a new list) ==================
+
+    /** This list with the events appended (the last chunk is filled up first) */
+    public ChunkedEventList withAll(Collection<Event> added) {
+        if (added.isEmpty()) return this;
+        Event[] all = added.toArray(new Event[0]);
+        int last = chunks.length - 1;
+        int room = last < 0 ? 0 : CHUNK_SIZE - chunks[last].length;
+        int intoLast = Math.min(room, all.length);
+        int newChunks = (all.length - intoLast + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        Event[][] nextChunks = Arrays.copyOf(chunks, chunks.length + newChunks);
+        int[] nextKeys = Arrays.copyOf(keys, keys.length + newChunks);
+        if (intoLast > 0) {
+            Event[] chunk = Arrays.copyOf(chunks[last], chunks[last].length + intoLast);
+            System.arraycopy(all, 0, chunk, chunks[last].length, intoLast);
+            nextChunks[last] = chunk;
+        }
+        int key = nextKey;
+        for (int from = intoLast, c = chunks.length; from < all.length; from += CHUNK_SIZE, c++) {
+            nextChunks[c] = Arrays.copyOfRange(all, from, Math.min(from + CHUNK_SIZE, all.length));
+            nextKeys[c] = key++;
+        }
+        return new ChunkedEventList(nextChunks, nextKeys, key);
+    }
+
+    /**
+     * This list without the event (compared by identity)
+     * @param key key of the chunk the event is in
+     * @return the new list, or null if the event is not in that chunk
+     */
+    public ChunkedEventList without(int key, Event e) {
+        int c = Arrays.binarySearch(keys, key);
+        int pos = c < 0 ? -1 : positionIn(chunks[c], e);
+        if (pos < 0) return null;
+
+        Event[] chunk = chunks[c];
+        if (chunk.length == 1) { // the chunk goes away
+            Event[][] nextChunks = new Event[chunks.length - 1][];
+            int[] nextKeys = new int[keys.length - 1];
+            System.arraycopy(chunks, 0, nextChunks, 0, c);
+            System.arraycopy(chunks, c + 1, nextChunks, c, chunks.length - c - 1);
+            System.arraycopy(keys, 0, nextKeys, 0, c);
+            System.arraycopy(keys, c + 1, nextKeys, c, keys.length - c - 1);
+            return new ChunkedEventList(nextChunks, nextKeys, nextKey);
+        }
+        Event[] smaller = new Event[chunk.length - 1];
+        System.arraycopy(chunk, 0, smaller, 0, pos);
+        System.arraycopy(chunk, pos + 1, smaller, pos, chunk.length - pos - 1);
+        Event[][] nextChunks = chunks.clone();
+        nextChunks[c] = smaller;
+        return new ChunkedEventList(nextChunks, keys, nextKey);
+    }
+
+    /**
+     * This list with one event replaced by another in the same place
+     * @return the new list, or null if the old event is not in that chunk
+     */
+    public ChunkedEventList replacing(int key, Event old, Event replacement) {
+        int c = Arrays.binarySearch(keys, key);
+        int pos = c < 0 ? -1 : positionIn(chunks[c], old);
+        if (pos < 0) return null;
+
+        Event[] chunk = chunks[c].clone();
+        chunk[pos] = replacement;
+        Event[][] nextChunks = chunks.clone();
+        nextChunks[c] = chunk;
+        return new ChunkedEventList(nextChunks, keys, nextKey);
+    }
+
+    /**
+     * Put every event of the chunks from the given one on into the map
+     * (event -> key of its chunk)
+     */
+    void putChunkKeys(int fromChunk, Map<Event, Integer> chunkKeys) {
+        for (int c = Math.max(fromChunk, 0); c < chunks.length; c++) {
+            for (Event e : chunks[c]) chunkKeys.put(e, keys[c]);
+        }
+    }
+
+    /** Number of chunks (events appended later go into the last one or after it) */
+    int chunkCount() {
+        return chunks.length;
+    }
+
+    // ================== List ==================
+
+    @Override
+    public Event get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        int c = Arrays.binarySearch(offsets, index);
+        if (c < 0) c = -c - 2; // the chunk starting before index
+        return chunks[c][index - offsets[c]];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** Walks the chunks directly (no search per element) */
+    @Override
+    public Iterator<Event> iterator() {
+        return new Iterator<Event>() {
+            private int chunk = 0;
+            private int pos = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (chunk < chunks.length && pos == chunks[chunk].length) {
+                    chunk++;
+                    pos = 0;
+                }
+                return chunk < chunks.length;
+            }
+
+            @Override
+            public Event next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return chunks[chunk][pos++];
+            }
+        };
+    }
+
+    private static int positionIn(Event[] chunk, Event e) {
+        for (int i = 0; i < chunk.length; i++) {
+            if (chunk[i] == e) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,329 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CompactEventStore keeps events column by column ("struct of arrays")
+ * instead of as Event objects, for calendars with millions of events:
+ *   ids, reminders          int[]
+ *   starts, ends            long[] epoch minutes (as if UTC, like BinarySnapshot)
+ *   titles, descriptions    int[] indexes into one table of distinct strings
+ * An event costs about 32 bytes plus its share of the strings, against
+ * roughly 150 bytes for an Event with its two LocalDateTimes. Occurrences
+ * of a recurring event share the title/description of the series.
+ *
+ * Event objects are only made when asked for (get, asList); changing such
+ * an Event does not change the store, use set() for that. The primitive
+ * accessors (startMinuteAt, ...) don't create anything.
+ *
+ * Times with seconds (rare: the app works in minutes) are kept exactly in
+ * a small side table. Not thread-safe; this is meant for loading and
+ * analysing big calendars, while EventStore serves the running app.
+ */
+public class CompactEventStore {
+
+    private static final long NO_TIME = Long.MIN_VALUE; // null start/end
+    private static final int NO_STRING = -1;            // null title/description
+
+    private int size = 0;
+    private int[] ids;
+    private int[] reminders;
+    private long[] starts;
+    private long[] ends;
+    private int[] titles;
+    private int[] descriptions;
+
+    // Distinct strings; titles/descriptions point into this table
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+
+    // Rare extras by row: recurrence rules, and times that aren't whole minutes
+    private final Map<Integer, Recurrence> recurrences = new HashMap<>();
+    private final Map<Integer, LocalDateTime[]> exactTimes = new HashMap<>();
+
+    public CompactEventStore() {
+        this(16);
+    }
+
+    /** @param capacity number of events to make room for up front */
+    public CompactEventStore(int capacity) {
+        capacity = Math.max(capacity, 1);
+        ids = new int[capacity];
+        reminders = new int[capacity];
+        starts = new long[capacity];
+        ends = new long[capacity];
+        titles = new int[capacity];
+        descriptions = new int[capacity];
+    }
+
+    /** Store a list of events (their order is kept) */
+    public static CompactEventStore of(Collection<Event> events) {
+        CompactEventStore store = new CompactEventStore(events.size());
+        for (Event e : events) store.add(e);
+        return store;
+    }
+
+    /**
+     * Load a binary snapshot straight into columns, without creating Event objects.
+     * Each distinct string of the snapshot is decoded only once.
+     */
+    public static CompactEventStore of(BinarySnapshot snapshot) {
+        int count = snapshot.size();
+        CompactEventStore store = new CompactEventStore(count);
+        Map<Integer, Integer> byHeapOffset = new HashMap<>(); // snapshot string -> our string
+        for (int i = 0; i < count; i++) {
+            store.ids[i] = snapshot.idAt(i);
+            store.reminders[i] = snapshot.reminderAt(i);
+            store.starts[i] = Math.floorDiv(snapshot.startSecondsAt(i), 60);
+            store.ends[i] = Math.floorDiv(snapshot.endSecondsAt(i), 60);
+            store.titles[i] = store.snapshotString(snapshot, snapshot.titleOffsetAt(i), byHeapOffset);
+            store.descriptions[i] = store.snapshotString(snapshot, snapshot.descriptionOffsetAt(i), byHeapOffset);
+            store.size = i + 1;
+            if (snapshot.startSecondsAt(i) % 60 != 0 || snapshot.endSecondsAt(i) % 60 != 0) {
+                store.exactTimes.put(i, new LocalDateTime[] { snapshot.startAt(i), snapshot.endAt(i) });
+            }
+        }
+        return store;
+    }
+
+    // ================== Changes ==================
+
+    /** Append an event (its recurrence rule is kept too) */
+    public void add(Event e) {
+        ensureCapacity(size + 1);
+        size++;
+        set(size - 1, e);
+    }
+
+    /**
+     * Append every occurrence of a recurring event, like
+     * RecurrenceLogic.generateRecurringEvents (id 0, no reminder, no rule of their own),
+     * without creating an Event per occurrence
+     * @return number of rows added
+     */
+    public int addOccurrences(Event series) {
+        Recurrence recurrence = series.getRecurrence();
+        if (recurrence == null || !recurrence.isRecurring() || series.getStart() == null || series.getEnd() == null) {
+            add(series);
+            return 1;
+        }
+
+        int title = stringRef(series.getTitle());
+        int description = stringRef(series.getDescription());
+        long length = Duration.between(series.getStart(), series.getEnd()).toMinutes();
+        // Sized from the count (arithmetic for simple rules) and filled straight
+        // from the iterator, so no list of occurrences is built in between
+        long count = recurrence.occurrenceCount(series.getStart());
+        if (size + count > Integer.MAX_VALUE - 8) throw new IllegalStateException("Too many occurrences: " + count);
+        ensureCapacity(size + (int) count);
+        int added = 0;
+        RecurrenceIterator occurrences = recurrence.iterator(series.getStart());
+        while (occurrences.hasNext() && added < count) {
+            LocalDateTime start = occurrences.next();
+            int row = size++;
+            added++;
+            ids[row] = 0;
+            reminders[row] = 0;
+            titles[row] = title;
+            descriptions[row] = description;
+            starts[row] = Math.floorDiv(epochSeconds(start), 60);
+            ends[row] = starts[row] + length;
+            if (start.getSecond() != 0 || start.getNano() != 0) {
+                exactTimes.put(row, new LocalDateTime[] { start, start.plusMinutes(length) });
+            }
+        }
+        return added;
+    }
+
+    /** Replace the event in a row */
+    public void set(int row, Event e) {
+        checkRow(row);
+        ids[row] = e.getId();
+        reminders[row] = e.getReminderMinutes();
+        titles[row] = stringRef(e.getTitle());
+        descriptions[row] = stringRef(e.getDescription());
+        starts[row] = toMinute(e.getStart());
+        ends[row] = toMinute(e.getEnd());
+
+        if (isWholeMinute(e.getStart()) && isWholeMinute(e.getEnd())) exactTimes.remove(row);
+        else exactTimes.put(row, new LocalDateTime[] { e.getStart(), e.getEnd() });
+
+        if (e.getRecurrence() != null) recurrences.put(row, e.getRecurrence());
+        else recurrences.remove(row);
+    }
+
+    public void clear() {
+        size = 0;
+        strings.clear();
+        stringIndex.clear();
+        recurrences.clear();
+        exactTimes.clear();
+    }
+
+    /** Drop unused room at the end of the columns */
+    public void trimToSize() {
+        int capacity = Math.max(size, 1);
+        ids = Arrays.copyOf(ids, capacity);
+        reminders = Arrays.copyOf(reminders, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+    }
+
+    // ================== Reads ==================
+
+    public int size() {
+        return size;
+    }
+
+    /** Number of distinct titles and descriptions */
+    public int distinctStrings() {
+        return strings.size();
+    }
+
+    public int idAt(int row) {
+        checkRow(row);
+        return ids[row];
+    }
+
+    public int reminderAt(int row) {
+        checkRow(row);
+        return reminders[row];
+    }
+
+    /** Start in epoch minutes (as if UTC), or Long.MIN_VALUE if the event has none */
+    public long startMinuteAt(int row) {
+        checkRow(row);
+        return starts[row];
+    }
+
+    /** End in epoch minutes (as if UTC), or Long.MIN_VALUE if the event has none */
+    public long endMinuteAt(int row) {
+        checkRow(row);
+        return ends[row];
+    }
+
+    public String titleAt(int row) {
+        checkRow(row);
+        return string(titles[row]);
+    }
+
+    public String descriptionAt(int row) {
+        checkRow(row);
+        return string(descriptions[row]);
+    }
+
+    public LocalDateTime startAt(int row) {
+        checkRow(row);
+        LocalDateTime[] exact = exactTimes.get(row);
+        return exact != null ? exact[0] : toDateTime(starts[row]);
+    }
+
+    public LocalDateTime endAt(int row) {
+        checkRow(row);
+        LocalDateTime[] exact = exactTimes.get(row);
+        return exact != null ? exact[1] : toDateTime(ends[row]);
+    }
+
+    /** Make an Event for one row (a new object each time) */
+    public Event get(int row) {
+        Event e = new Event(idAt(row), titleAt(row), descriptionAt(row), startAt(row), endAt(row), reminderAt(row));
+        e.setRecurrence(recurrences.get(row));
+        return e;
+    }
+
+    /**
+     * List view for code that works on List<Event> (analytics, searches):
+     * get() makes the Event on demand, set() and add() write through to the columns.
+     */
+    public List<Event> asList() {
+        return new AbstractList<Event>() {
+            @Override
+            public Event get(int index) {
+                return CompactEventStore.this.get(index);
+            }
+
+            @Override
+            public Event set(int index, Event e) {
+                Event old = CompactEventStore.this.get(index);
+                CompactEventStore.this.set(index, e);
+                return old;
+            }
+
+            @Override
+            public void add(int index, Event e) {
+                if (index != size) throw new UnsupportedOperationException("Events can only be added at the end");
+                CompactEventStore.this.add(e);
+                modCount++;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // ================== Internals ==================
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Index: " + row + ", Size: " + size);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) return;
+        int capacity = Math.max(needed, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        reminders = Arrays.copyOf(reminders, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+    }
+
+    /** Index of the string in the table, adding it the first time it is seen */
+    private int stringRef(String text) {
+        if (text == null) return NO_STRING;
+        Integer known = stringIndex.get(text);
+        if (known != null) return known;
+        strings.add(text);
+        stringIndex.put(text, strings.size() - 1);
+        return strings.size() - 1;
+    }
+
+    private int snapshotString(BinarySnapshot snapshot, int heapOffset, Map<Integer, Integer> byHeapOffset) {
+        Integer known = byHeapOffset.get(heapOffset);
+        if (known != null) return known;
+        int ref = stringRef(snapshot.stringAt(heapOffset));
+        byHeapOffset.put(heapOffset, ref);
+        return ref;
+    }
+
+    private String string(int ref) {
+        return ref == NO_STRING ? null : strings.get(ref);
+    }
+
+    private static long epochSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static long toMinute(LocalDateTime time) {
+        return time == null ? NO_TIME : Math.floorDiv(epochSeconds(time), 60);
+    }
+
+    private static LocalDateTime toDateTime(long minute) {
+        return minute == NO_TIME ? null : LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+
+    private static boolean isWholeMinute(LocalDateTime time) {
+        return time == null || (time.getSecond() == 0 && time.getNano() == 0);
+    }
+}
@@ -0,0 +1,301 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * CsvRecordReader reads the app's CSV files one record at a time without
+ * String.split. Lines stay inside one reusable char buffer; each field is
+ * just a (start, end) pair into that buffer. Numbers and dates are parsed
+ * straight from the characters, and only text fields become new Strings.
+ *
+ * Format (same as FileManager writes it): fields separated by ',', commas
+ * inside text stored as ";;", surrounding spaces ignored.
+ *
+ * Usage:
+ *   try (CsvRecordReader csv = new CsvRecordReader(new FileReader(file))) {
+ *       while (csv.next()) { int id = csv.getInt(0); ... }
+ *   }
+ */
+public class CsvRecordReader implements Closeable {
+
+    private final Reader in;
+    private char[] buf = new char[64 * 1024];
+    private int pos = 0;        // start of the next unread line
+    private int limit = 0;      // end of valid data in buf
+    private boolean eof = false;
+
+    private int lineStart, lineEnd;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int fieldCount = 0;
+
+    public CsvRecordReader(Reader in) {
+        this.in = in;
+    }
+
+    /** Reader over a single line of text (e.g. AdditionalFields.fromCsvLine) */
+    public static CsvRecordReader forLine(String line) {
+        return new CsvRecordReader(new StringReader(line));
+    }
+
+    /**
+     * Move to the next non-blank line and split it into fields
+     * @return false at the end of the input
+     */
+    public boolean next() throws IOException {
+        while (readLine()) {
+            if (!isBlank()) {
+                tokenize();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Number of fields on the current line */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /** The current line as a String (for error messages) */
+    public String line() {
+        return new String(buf, lineStart, lineEnd - lineStart);
+    }
+
+    /** True if the (trimmed) field is exactly the given text */
+    public boolean fieldEquals(int field, String text) {
+        int s = starts[field], len = ends[field] - s;
+        if (len != text.length()) return false;
+        for (int i = 0; i < len; i++) {
+            if (buf[s + i] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /** True if the line starts with the given text (e.g. a header like "eventId") */
+    public boolean lineStartsWith(String text) {
+        if (lineEnd - lineStart < text.length()) return false;
+        for (int i = 0; i < text.length(); i++) {
+            if (buf[lineStart + i] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /** Length of the (trimmed) field */
+    public int fieldLength(int field) {
+        return ends[field] - starts[field];
+    }
+
+    /** Last character of the field, or 0 if it is empty */
+    public char lastChar(int field) {
+        return ends[field] > starts[field] ? buf[ends[field] - 1] : 0;
+    }
+
+    /**
+     * Text of a field with ";;" turned back into ","
+     */
+    public String getString(int field) {
+        int s = starts[field], e = ends[field];
+        int escape = indexOfEscape(s, e);
+        if (escape < 0) return new String(buf, s, e - s);
+
+        StringBuilder sb = new StringBuilder(e - s);
+        int from = s;
+        while (escape >= 0) {
+            sb.append(buf, from, escape - from).append(',');
+            from = escape + 2;
+            escape = indexOfEscape(from, e);
+        }
+        sb.append(buf, from, e - from);
+        return sb.toString();
+    }
+
+    /**
+     * Parse a whole field as an int (same rules as Integer.parseInt)
+     * @throws NumberFormatException if the field is not a number
+     */
+    public int getInt(int field) {
+        int s = starts[field], e = ends[field];
+        int value = parseDigits(s, e);
+        if (value == Integer.MIN_VALUE) throw new NumberFormatException("For input string: \"" + new String(buf, s, e - s) + "\"");
+        return value;
+    }
+
+    /** Parse a field as an int, or return the default if it isn't one */
+    public int getInt(int field, int defaultValue) {
+        int value = parseDigits(starts[field], ends[field]);
+        return value == Integer.MIN_VALUE ? defaultValue : value;
+    }
+
+    /**
+     * Parse the field without its last character as an int (e.g. "2w" -> 2)
+     * @throws NumberFormatException if that part is not a number
+     */
+    public int getIntWithoutSuffix(int field) {
+        int s = starts[field], e = ends[field] - 1;
+        int value = e > s ? parseDigits(s, e) : Integer.MIN_VALUE;
+        if (value == Integer.MIN_VALUE) throw new NumberFormatException("For input string: \"" + new String(buf, s, ends[field] - s) + "\"");
+        return value;
+    }
+
+    /**
+     * Parse an ISO date-time field ("2025-10-01T09:00", "2025-10-01T09:00:00" or with fractions)
+     */
+    public LocalDateTime getDateTime(int field) {
+        int s = starts[field], len = ends[field] - s;
+        if (len >= 16 && buf[s + 4] == '-' && buf[s + 7] == '-' && buf[s + 10] == 'T' && buf[s + 13] == ':') {
+            int year = digits(s, 4), month = digits(s + 5, 2), day = digits(s + 8, 2);
+            int hour = digits(s + 11, 2), minute = digits(s + 14, 2);
+            int second = 0, nano = 0;
+            boolean ok = year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0;
+            if (ok && len > 16) {
+                ok = len >= 19 && buf[s + 16] == ':' && (second = digits(s + 17, 2)) >= 0;
+                if (ok && len > 19) {
+                    int fraction = len - 20;
+                    ok = buf[s + 19] == '.' && fraction >= 1 && fraction <= 9 && (nano = digits(s + 20, fraction)) >= 0;
+                    for (int i = fraction; ok && i < 9; i++) nano *= 10;
+                }
+            }
+            if (ok) return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        }
+        // Anything unusual goes through the normal parser (and its error messages)
+        return LocalDateTime.parse(new String(buf, s, len), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+
+    /**
+     * Parse an ISO date field ("2026-02-12")
+     */
+    public LocalDate getDate(int field) {
+        int s = starts[field], len = ends[field] - s;
+        if (len == 10 && buf[s + 4] == '-' && buf[s + 7] == '-') {
+            int year = digits(s, 4), month = digits(s + 5, 2), day = digits(s + 8, 2);
+            if (year >= 0 && month >= 0 && day >= 0) return LocalDate.of(year, month, day);
+        }
+        return LocalDate.parse(new String(buf, s, len), DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // ================== Internals ==================
+
+    /** Find the next line in the buffer, reading more input as needed */
+    private boolean readLine() throws IOException {
+        int scan = pos;
+        while (true) {
+            for (int i = scan; i < limit; i++) {
+                if (buf[i] == '\n') {
+                    setLine(pos, i);
+                    pos = i + 1;
+                    return true;
+                }
+            }
+            if (eof) {
+                if (pos >= limit) return false;
+                setLine(pos, limit); // last line without newline
+                pos = limit;
+                return true;
+            }
+            scan = limit - pos;
+            fill();
+            scan = pos + scan;
+        }
+    }
+
+    private void setLine(int start, int end) {
+        if (end > start && buf[end - 1] == '\r') end--;
+        lineStart = start;
+        lineEnd = end;
+    }
+
+    /** Move the unread part to the front of the buffer (growing it if full) and read more */
+    private void fill() throws IOException {
+        int remaining = limit - pos;
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, remaining);
+        } else if (remaining == buf.length) {
+            char[] bigger = new char[buf.length * 2];
+            System.arraycopy(buf, 0, bigger, 0, remaining);
+            buf = bigger;
+        }
+        pos = 0;
+        limit = remaining;
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n < 0) eof = true;
+        else limit += n;
+    }
+
+    private boolean isBlank() {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (buf[i] > ' ') return false;
+        }
+        return true;
+    }
+
+    /** Record the trimmed (start, end) of every comma-separated field */
+    private void tokenize() {
+        fieldCount = 0;
+        int fieldStart = lineStart;
+        for (int i = lineStart; i <= lineEnd; i++) {
+            if (i == lineEnd || buf[i] == ',') {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+        // Like String.split: trailing empty fields don't count
+        while (fieldCount > 0 && ends[fieldCount - 1] == starts[fieldCount - 1]) fieldCount--;
+    }
+
+    private void addField(int s, int e) {
+        while (s < e && buf[s] <= ' ') s++;
+        while (e > s && buf[e - 1] <= ' ') e--;
+        if (fieldCount == starts.length) {
+            starts = java.util.Arrays.copyOf(starts, fieldCount * 2);
+            ends = java.util.Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = s;
+        ends[fieldCount] = e;
+        fieldCount++;
+    }
+
+    private int indexOfEscape(int from, int end) {
+        for (int i = from; i + 1 < end; i++) {
+            if (buf[i] == ';' && buf[i + 1] == ';') return i;
+        }
+        return -1;
+    }
+
+    /** Parse an optionally signed decimal int; Integer.MIN_VALUE means "not a number" */
+    private int parseDigits(int s, int e) {
+        if (s >= e) return Integer.MIN_VALUE;
+        boolean negative = buf[s] == '-';
+        if (negative || buf[s] == '+') s++;
+        if (s >= e || e - s > 10) return Integer.MIN_VALUE;
+        long value = 0;
+        for (int i = s; i < e; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) return Integer.MIN_VALUE;
+            value = value * 10 + d;
+        }
+        if (negative) value = -value;
+        if (value <= Integer.MIN_VALUE || value > Integer.MAX_VALUE) return Integer.MIN_VALUE;
+        return (int) value;
+    }
+
+    /** Exactly `count` digits as a number, or -1 */
+    private int digits(int s, int count) {
+        int value = 0;
+        for (int i = s; i < s + count; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) return -1;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,193 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EventIntervalTree indexes events by their [start, end) time range.
+ * It is a balanced (AVL) tree ordered by start time where every node also
+ * remembers the latest end time in its subtree, so overlap queries can skip
+ * whole branches instead of checking every event.
+ */
+public class EventIntervalTree {
+
+    private static class Node {
+        final Event event;
+        final LocalDateTime start;  // copied on insert so later edits to the Event can't break the ordering
+        final LocalDateTime end;
+        final long seq;             // tie-breaker for events with the same start and id
+        LocalDateTime maxEnd;       // latest end time in this subtree
+        int height = 1;
+        Node left, right;
+
+        Node(Event event, long seq) {
+            this.event = event;
+            this.start = event.getStart();
+            this.end = event.getEnd();
+            this.seq = seq;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node root;
+    private long nextSeq = 0;
+    private final Map<Event, Node> nodes = new IdentityHashMap<>(); // lets remove() find the stored key
+
+    /**
+     * Add an event to the index (events without start/end are ignored)
+     */
+    public void insert(Event event) {
+        if (event == null || event.getStart() == null || event.getEnd() == null) return;
+        remove(event); // never index the same object twice
+        Node node = new Node(event, nextSeq++);
+        root = insert(root, node);
+        nodes.put(event, node);
+    }
+
+    /**
+     * Remove an event from the index. Must be called before the event's
+     * start/end are changed, then insert() it again afterwards.
+     */
+    public void remove(Event event) {
+        Node node = nodes.remove(event);
+        if (node != null) {
+            root = delete(root, node);
+        }
+    }
+
+    public void clear() {
+        root = null;
+        nodes.clear();
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Find every event that overlaps [start, end)
+     * Events overlap if: start < event.end AND end > event.start
+     * @return overlapping events ordered by start time
+     */
+    public List<Event> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        List<Event> result = new ArrayList<>();
+        collect(root, start, end, -1, result, false);
+        return result;
+    }
+
+    /**
+     * Find the earliest event that overlaps [start, end)
+     * @param excludeId event ID to skip (use -1 to check all)
+     * @return the conflicting event or null if the slot is free
+     */
+    public Event findFirstOverlap(LocalDateTime start, LocalDateTime end, int excludeId) {
+        List<Event> result = new ArrayList<>(1);
+        collect(root, start, end, excludeId, result, true);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    // ================== Tree internals ==================
+
+    private boolean collect(Node h, LocalDateTime start, LocalDateTime end, int excludeId,
+                            List<Event> out, boolean firstOnly) {
+        // Nothing in this subtree ends after the query starts
+        if (h == null || !h.maxEnd.isAfter(start)) return false;
+
+        if (collect(h.left, start, end, excludeId, out, firstOnly)) return true;
+
+        // This node and everything to its right start too late
+        if (!h.start.isBefore(end)) return false;
+
+        if (h.end.isAfter(start) && h.event.getId() != excludeId) {
+            out.add(h.event);
+            if (firstOnly) return true;
+        }
+        return collect(h.right, start, end, excludeId, out, firstOnly);
+    }
+
+    private static int compare(Node a, Node b) {
+        int c = a.start.compareTo(b.start);
+        if (c != 0) return c;
+        c = Integer.compare(a.event.getId(), b.event.getId());
+        if (c != 0) return c;
+        return Long.compare(a.seq, b.seq);
+    }
+
+    private Node insert(Node h, Node node) {
+        if (h == null) return node;
+        if (compare(node, h) < 0) h.left = insert(h.left, node);
+        else h.right = insert(h.right, node);
+        return balance(h);
+    }
+
+    private Node delete(Node h, Node target) {
+        if (h == null) return null;
+        int c = compare(target, h);
+        if (c < 0) {
+            h.left = delete(h.left, target);
+        } else if (c > 0) {
+            h.right = delete(h.right, target);
+        } else {
+            if (h.left == null) return h.right;
+            if (h.right == null) return h.left;
+            // Replace the node with its in-order successor
+            Node successor = h.right;
+            while (successor.left != null) successor = successor.left;
+            successor.right = deleteMin(h.right);
+            successor.left = h.left;
+            h = successor;
+        }
+        return balance(h);
+    }
+
+    private Node deleteMin(Node h) {
+        if (h.left == null) return h.right;
+        h.left = deleteMin(h.left);
+        return balance(h);
+    }
+
+    private static int height(Node h) {
+        return h == null ? 0 : h.height;
+    }
+
+    private static void update(Node h) {
+        h.height = 1 + Math.max(height(h.left), height(h.right));
+        LocalDateTime max = h.end;
+        if (h.left != null && h.left.maxEnd.isAfter(max)) max = h.left.maxEnd;
+        if (h.right != null && h.right.maxEnd.isAfter(max)) max = h.right.maxEnd;
+        h.maxEnd = max;
+    }
+
+    private static Node balance(Node h) {
+        update(h);
+        int diff = height(h.left) - height(h.right);
+        if (diff > 1) {
+            if (height(h.left.left) < height(h.left.right)) h.left = rotateLeft(h.left);
+            return rotateRight(h);
+        }
+        if (diff < -1) {
+            if (height(h.right.right) < height(h.right.left)) h.right = rotateRight(h.right);
+            return rotateLeft(h);
+        }
+        return h;
+    }
+
+    private static Node rotateRight(Node h) {
+        Node x = h.left;
+        h.left = x.right;
+        x.right = h;
+        update(h);
+        update(x);
+        return x;
+    }
+
+    private static Node rotateLeft(Node h) {
+        Node x = h.right;
+        h.right = x.left;
+        x.left = h;
+        update(h);
+        update(x);
+        return x;
+    }
+}
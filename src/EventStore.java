@@ -0,0 +1,591 @@
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * EventStore holds every event together with the indexes over them, and is
+ * safe to use from several threads at once (Swing EDT, reminder, backup and
+ * snooze threads).
+ * - Changes take the write lock of a StampedLock and update the list and all
+ *   indexes together; index queries take the read lock, so nobody ever sees
+ *   an index half way through a change. Simple counters use optimistic reads.
+ * - The event list itself is an immutable ChunkedEventList: every change
+ *   publishes a new version, and snapshot() just returns the current one
+ *   without taking any lock. Background services can iterate it for as long
+ *   as they like and never block writers. A single add/remove/update copies
+ *   only the chunk it touches and the chunk table (not the whole list), and
+ *   finds that chunk through chunkKeys instead of scanning the list. Bulk
+ *   changes (replaceAll, removeIf, updateAll) rebuild the list once.
+ * - Single events are also kept in a ConcurrentSkipListMap ordered by start
+ *   time, so "what comes next" is a walk from the current time that returns
+ *   events already sorted (see startingBetween and nextEvents).
+ */
+public class EventStore {
+
+    private final StampedLock lock = new StampedLock();
+
+    // Immutable, a new version is published under the write lock, so it
+    // can be read without the lock. Everything below it is guarded by lock.
+    private volatile ChunkedEventList events = ChunkedEventList.EMPTY;
+
+    // Event (by identity) -> key of the chunk of the list it is in
+    private final Map<Event, Integer> chunkKeys = new IdentityHashMap<>();
+
+    // Time-range index over single events
+    private final EventIntervalTree timeIndex = new EventIntervalTree();
+
+    // Recurring events are stored once as a series and expanded on demand
+    private final List<Event> seriesEvents = new ArrayList<>();
+
+    // Lookup indexes so finding an event by id/title doesn't scan the whole list
+    private final Map<Integer, Event> eventsById = new HashMap<>();
+    private final Map<String, List<Event>> eventsByTitle = new HashMap<>(); // key: lower-case title
+    private int maxId = 0; // highest id ever seen, so ids are never handed out twice
+
+    // Word/trigram index over titles and descriptions for keyword search
+    private final KeywordIndex keywordIndex = new KeywordIndex();
+
+    // Single events bucketed by start date; each day's list is kept sorted by start time
+    private final TreeMap<LocalDate, List<Event>> eventsByDate = new TreeMap<>();
+
+    // Single events ordered by (start, id). Changed under the write lock like the
+    // other indexes, but a skip list can also be walked while it changes, so
+    // upcoming-event queries read it without waiting for writers.
+    private final ConcurrentSkipListMap<StartKey, Event> eventsByStart = new ConcurrentSkipListMap<>();
+
+    /** Position of an event in eventsByStart */
+    private static final class StartKey implements Comparable<StartKey> {
+        final LocalDateTime start;
+        final int id;
+
+        StartKey(LocalDateTime start, int id) {
+            this.start = start;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(StartKey other) {
+            int byStart = start.compareTo(other.start);
+            return byStart != 0 ? byStart : Integer.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StartKey && compareTo((StartKey) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return start.hashCode() * 31 + id;
+        }
+    }
+
+    // ================== Changes ==================
+
+    /**
+     * Replace every event (e.g. after loading or restoring a backup).
+     * Ids of events that were dropped are still not reused.
+     */
+    public void replaceAll(Collection<Event> newEvents) {
+        long stamp = lock.writeLock();
+        try {
+            timeIndex.clear();
+            seriesEvents.clear();
+            eventsById.clear();
+            eventsByTitle.clear();
+            keywordIndex.clear();
+            eventsByDate.clear();
+            eventsByStart.clear();
+            for (Event e : newEvents) indexEvent(e);
+            publishRebuilt(newEvents);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void add(Event e) {
+        long stamp = lock.writeLock();
+        try {
+            indexEvent(e);
+            publishAppended(Collections.singletonList(e));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove one specific event
+     * @return true if it was in the store
+     */
+    public boolean remove(Event e) {
+        long stamp = lock.writeLock();
+        try {
+            Integer key = chunkKeys.get(e);
+            ChunkedEventList next = key == null ? null : events.without(key, e);
+            if (next == null) return false;
+            unindexEvent(e);
+            chunkKeys.remove(e);
+            events = next;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Add several events with one lock and one new version of the list
+     */
+    public void addAll(Collection<Event> newEvents) {
+        long stamp = lock.writeLock();
+        try {
+            if (newEvents.isEmpty()) return;
+            for (Event e : newEvents) indexEvent(e);
+            publishAppended(newEvents);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Mark every id up to the given one as used (e.g. ids of events deleted
+     * before the last restart), so new ids start above it
+     */
+    public void markIdsUsed(int highestId) {
+        long stamp = lock.writeLock();
+        try {
+            if (highestId > maxId) maxId = highestId;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Reserve a block of new ids
+     * @return the first id of the block (the block is first .. first + count - 1)
+     */
+    public int reserveIds(int count) {
+        long stamp = lock.writeLock();
+        try {
+            int first = maxId + 1;
+            maxId += count;
+            return first;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove several events with one pass over the list
+     * @return the events that were actually in the store
+     */
+    public List<Event> removeAll(Collection<Event> toRemove) {
+        Set<Event> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+        targets.addAll(toRemove);
+        return removeIf(targets::contains);
+    }
+
+    /**
+     * Remove every event matching the filter with one pass over the list.
+     * The filter runs under the write lock, so it must not use the store.
+     * @return the removed events
+     */
+    public List<Event> removeIf(Predicate<Event> filter) {
+        List<Event> removed = new ArrayList<>();
+        long stamp = lock.writeLock();
+        try {
+            List<Event> next = new ArrayList<>(events.size());
+            for (Event e : events) {
+                if (filter.test(e)) removed.add(e);
+                else next.add(e);
+            }
+            if (removed.isEmpty()) return removed;
+            for (Event e : removed) unindexEvent(e);
+            publishRebuilt(next);
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Change every event matching the filter (each is replaced by a changed
+     * copy, like update()). The filter and change run under the write lock,
+     * so they must not use the store.
+     * @return original event -> updated copy, in list order
+     */
+    public Map<Event, Event> updateAll(Predicate<Event> filter, Consumer<Event> change) {
+        Map<Event, Event> updated = new LinkedHashMap<>();
+        long stamp = lock.writeLock();
+        try {
+            List<Event> next = new ArrayList<>(events);
+            for (int i = 0; i < next.size(); i++) {
+                Event e = next.get(i);
+                if (!filter.test(e)) continue;
+                Event copy = copyOf(e);
+                change.accept(copy);
+                unindexEvent(e);
+                next.set(i, copy);
+                indexEvent(copy);
+                updated.put(e, copy);
+            }
+            if (!updated.isEmpty()) publishRebuilt(next);
+            return updated;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Change an event. The change is applied to a copy which then replaces the
+     * original in the list and indexes, so snapshots already handed out (and
+     * readers sorting them) never see an event change under their feet.
+     * @return the updated copy, or null if the event is not in the store
+     */
+    public Event update(Event e, Consumer<Event> change) {
+        Event copy = copyOf(e);
+        change.accept(copy);
+
+        long stamp = lock.writeLock();
+        try {
+            if (eventsById.get(e.getId()) != e) return null;
+            Integer key = chunkKeys.get(e);
+            ChunkedEventList next = key == null ? null : events.replacing(key, e, copy);
+            if (next == null) return null;
+            unindexEvent(e);
+            indexEvent(copy);
+            chunkKeys.remove(e);
+            chunkKeys.put(copy, key);
+            events = next;
+            return copy;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // ================== Reads ==================
+
+    /**
+     * Immutable view of all events in insertion order. It does not change when
+     * the store changes; call snapshot() again to see newer events.
+     * No lock and no copy: the list is already the published copy.
+     */
+    public List<Event> snapshot() {
+        return events;
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    /** Next free event id (one more than the highest id ever used) */
+    public int nextId() {
+        long stamp = lock.tryOptimisticRead();
+        int id = maxId + 1;
+        if (lock.validate(stamp)) return id;
+
+        stamp = lock.readLock();
+        try {
+            return maxId + 1;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public Event findById(int id) {
+        long stamp = lock.readLock();
+        try {
+            return eventsById.get(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * The events with the given ids, in id order (ids without an event are skipped).
+     * One map lookup per id, so the cost depends on the number of ids, not on the store size.
+     */
+    public List<Event> findByIds(java.util.BitSet ids) {
+        List<Event> result = new ArrayList<>(ids.cardinality());
+        long stamp = lock.readLock();
+        try {
+            for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+                Event e = eventsById.get(id);
+                if (e != null) result.add(e);
+                if (id == Integer.MAX_VALUE) break;
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** First event added with this title (case-insensitive), or null */
+    public Event findFirstByTitle(String title) {
+        long stamp = lock.readLock();
+        try {
+            List<Event> matches = eventsByTitle.get(titleKey(title));
+            return matches == null || matches.isEmpty() ? null : matches.get(0);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** All events with this title (case-insensitive) in the order they were added */
+    public List<Event> findAllByTitle(String title) {
+        long stamp = lock.readLock();
+        try {
+            List<Event> matches = eventsByTitle.get(titleKey(title));
+            return matches == null ? new ArrayList<>() : new ArrayList<>(matches);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Earliest single event, or else the first recurring occurrence, that overlaps [start, end)
+     * @param excludeId event ID to skip (use -1 to check all)
+     */
+    public Event findFirstOverlap(LocalDateTime start, LocalDateTime end, int excludeId) {
+        long stamp = lock.readLock();
+        try {
+            // The interval index only visits branches that can overlap [start, end)
+            Event conflict = timeIndex.findFirstOverlap(start, end, excludeId);
+            if (conflict != null) return conflict;
+
+            // Recurring series: one arithmetic check per series, nothing is expanded
+            for (Event series : seriesEvents) {
+                if (series.getId() == excludeId) continue;
+                Event occurrence = RecurrenceLogic.findOverlappingOccurrence(series, start, end);
+                if (occurrence != null) return occurrence;
+            }
+            return null;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Every event (and recurring occurrence) overlapping [start, end)
+     * @return events in no particular order
+     */
+    public List<Event> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        long stamp = lock.readLock();
+        try {
+            List<Event> result = timeIndex.findOverlapping(start, end);
+            for (Event series : seriesEvents) {
+                seriesOverlaps(series, start, end).forEach(result::add);
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Single events starting on a date between from and to (inclusive), sorted by start time */
+    public List<Event> singleEventsBetween(LocalDate from, LocalDate to) {
+        long stamp = lock.readLock();
+        try {
+            return SearchUtils.searchByDateRange(eventsByDate, from, to);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Every event (and recurring occurrence) starting in [from, to), sorted by start time.
+     * Single events come from a walk over the start-time index, so the cost depends on
+     * how many events are in the window, not on how many there are in total.
+     */
+    public List<Event> startingBetween(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) return new ArrayList<>();
+        List<Event> single = new ArrayList<>(eventsByStart.subMap(
+                new StartKey(from, Integer.MIN_VALUE), new StartKey(to, Integer.MIN_VALUE)).values());
+        List<Event> occurrences = seriesOccurrencesBetween(from, to);
+        return occurrences.isEmpty() ? single : mergeByStart(single, occurrences, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The next events (and recurring occurrences) starting at or after the given time
+     * @param count how many to return at most
+     * @return up to count events sorted by start time
+     */
+    public List<Event> nextEvents(LocalDateTime from, int count) {
+        if (count <= 0) return new ArrayList<>();
+        List<Event> single = new ArrayList<>(Math.min(count, 64));
+        for (Event e : eventsByStart.tailMap(new StartKey(from, Integer.MIN_VALUE)).values()) {
+            if (single.size() == count) break;
+            single.add(e);
+        }
+
+        // At most count occurrences of each series can be among the first count
+        List<Event> occurrences = new ArrayList<>();
+        long stamp = lock.readLock();
+        try {
+            for (Event series : seriesEvents) {
+                RecurrenceLogic.occurrencesBetween(series, from, LocalDateTime.MAX).limit(count).forEach(occurrences::add);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return occurrences.isEmpty() ? single : mergeByStart(single, occurrences, count);
+    }
+
+    /** Merge sorted single events with (unsorted) occurrences, keeping at most limit */
+    private static List<Event> mergeByStart(List<Event> sorted, List<Event> occurrences, int limit) {
+        occurrences.sort((a, b) -> a.getStart().compareTo(b.getStart()));
+        List<Event> merged = new ArrayList<>(Math.min(limit, sorted.size() + occurrences.size()));
+        int i = 0, j = 0;
+        while (merged.size() < limit && (i < sorted.size() || j < occurrences.size())) {
+            if (j == occurrences.size()
+                    || (i < sorted.size() && !sorted.get(i).getStart().isAfter(occurrences.get(j).getStart()))) {
+                merged.add(sorted.get(i++));
+            } else {
+                merged.add(occurrences.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    /** Occurrences of every recurring series that start in [from, to), unsorted */
+    public List<Event> seriesOccurrencesBetween(LocalDateTime from, LocalDateTime to) {
+        long stamp = lock.readLock();
+        try {
+            List<Event> result = new ArrayList<>();
+            for (Event series : seriesEvents) {
+                RecurrenceLogic.occurrencesBetween(series, from, to).forEach(result::add);
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Events whose title/description contains the keyword, ordered by id */
+    public List<Event> searchByKeyword(String keyword) {
+        long stamp = lock.readLock();
+        try {
+            return SearchUtils.searchByKeyword(keywordIndex, keyword);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Events whose title/description contain every word of the query */
+    public List<Event> searchByAllWords(String query) {
+        long stamp = lock.readLock();
+        try {
+            return SearchUtils.searchByAllWords(keywordIndex, query);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Events whose title/description contain at least one word of the query */
+    public List<Event> searchByAnyWord(String query) {
+        long stamp = lock.readLock();
+        try {
+            return SearchUtils.searchByAnyWord(keywordIndex, query);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // ================== Index maintenance (caller holds the write lock) ==================
+
+    /** Make a list of these events the current one (bulk changes) */
+    private void publishRebuilt(Collection<Event> all) {
+        ChunkedEventList next = ChunkedEventList.of(all);
+        chunkKeys.clear();
+        next.putChunkKeys(0, chunkKeys);
+        events = next;
+    }
+
+    /** Append events to the current list (only the last chunk and new ones are written) */
+    private void publishAppended(Collection<Event> added) {
+        ChunkedEventList next = events.withAll(added);
+        next.putChunkKeys(events.chunkCount() - 1, chunkKeys);
+        events = next;
+    }
+
+    private static Event copyOf(Event e) {
+        Event copy = new Event(e.getId(), e.getTitle(), e.getDescription(), e.getStart(), e.getEnd(), e.getReminderMinutes());
+        copy.setRecurrence(e.getRecurrence());
+        return copy;
+    }
+
+    static boolean isSeries(Event e) {
+        return e.getRecurrence() != null && e.getRecurrence().isRecurring();
+    }
+
+    private static String titleKey(String title) {
+        return title == null ? "" : title.toLowerCase(Locale.ROOT);
+    }
+
+    /** Occurrences of a series that overlap [start, end) */
+    private static Stream<Event> seriesOverlaps(Event series, LocalDateTime start, LocalDateTime end) {
+        long minutes = Duration.between(series.getStart(), series.getEnd()).toMinutes();
+        return RecurrenceLogic.occurrencesBetween(series, start.minusMinutes(minutes), end)
+                .filter(o -> o.getEnd().isAfter(start));
+    }
+
+    private void indexEvent(Event e) {
+        eventsById.put(e.getId(), e);
+        eventsByTitle.computeIfAbsent(titleKey(e.getTitle()), k -> new ArrayList<>(1)).add(e);
+        if (e.getId() > maxId) maxId = e.getId();
+        keywordIndex.add(e);
+
+        if (isSeries(e)) {
+            seriesEvents.add(e); // occurrences are expanded per query, not indexed
+        } else {
+            timeIndex.insert(e);
+            if (e.getStart() != null) {
+                // Insert into the day's list at its sorted position
+                List<Event> day = eventsByDate.computeIfAbsent(e.getStart().toLocalDate(), k -> new ArrayList<>(2));
+                int pos = day.size();
+                while (pos > 0 && day.get(pos - 1).getStart().isAfter(e.getStart())) pos--;
+                day.add(pos, e);
+                eventsByStart.put(new StartKey(e.getStart(), e.getId()), e);
+            }
+        }
+    }
+
+    private void unindexEvent(Event e) {
+        eventsById.remove(e.getId(), e);
+        String key = titleKey(e.getTitle());
+        List<Event> sameTitle = eventsByTitle.get(key);
+        if (sameTitle != null) {
+            sameTitle.remove(e);
+            if (sameTitle.isEmpty()) eventsByTitle.remove(key);
+        }
+
+        keywordIndex.remove(e);
+        timeIndex.remove(e);
+        seriesEvents.remove(e);
+        // Events in the store never change, so the bucket is still the right one
+        if (e.getStart() != null) {
+            LocalDate date = e.getStart().toLocalDate();
+            List<Event> day = eventsByDate.get(date);
+            if (day != null) {
+                day.remove(e);
+                if (day.isEmpty()) eventsByDate.remove(date);
+            }
+            eventsByStart.remove(new StartKey(e.getStart(), e.getId()), e);
+        }
+    }
+}
@@ -14,6 +14,12 @@ public class FileManager {
     // Use System.getProperty("user.dir") to ensure we're always in the project root
     private static final String FILE_PATH = System.getProperty("user.dir") + File.separator + "data" + File.separator + "event.csv";
     private static final String ADDITIONAL_FILE_PATH = System.getProperty("user.dir") + File.separator + "data" + File.separator + "additional.csv";
+
+    // Binary snapshot (see BinarySnapshot): much faster to load for big calendars.
+    // Saves use it when the app is started with -Dcalendar.snapshot=binary; loading
+    // always uses whichever of event.csv / event.bin was written last.
+    private static final String BINARY_FILE_PATH = System.getProperty("user.dir") + File.separator + "data" + File.separator + "event.bin";
+    private static final boolean BINARY_SNAPSHOT = "binary".equalsIgnoreCase(System.getProperty("calendar.snapshot", "csv"));
     
     // The format for dates (e.g., "2025-12-31T15:00:00")
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
@@ -24,221 +30,629 @@ public class FileManager {
         return field.replace(",", ";;");
     }
     
-    private static String unescapeCsvField(String field) {
-        if (field == null) return "";
-        return field.replace(";;", ",");
-    }
+    // (";;" is turned back into "," by CsvRecordReader.getString)
 
     // 2. LOADING (Read from File -> Create List)
     public static List<Event> loadEvents() {
         List<Event> eventList = new ArrayList<>();
-        File file = new File(FILE_PATH);
+        File file = latestSnapshotFile();
 
         // DEBUG: Print file information
         System.out.println("=== LOADING EVENTS DEBUG ===");
-        System.out.println("Looking for file at: " + FILE_PATH);
+        System.out.println("Looking for file at: " + file.getPath());
         System.out.println("Absolute path: " + file.getAbsolutePath());
         System.out.println("File exists: " + file.exists());
         System.out.println("Current working directory: " + System.getProperty("user.dir"));
         
-        // Step A: Safety Check - Does the file exist?
-        if (!file.exists()) {
+        // Step A: Safety Check - Does the file (or a journal) exist?
+        if (!file.exists() && !new File(JOURNAL_PATH).exists() && !new File(JOURNAL_COMPACTING_PATH).exists()) {
             System.out.println("No save file found. Starting a fresh calendar.");
             return eventList; // Return empty list
         }
         
         System.out.println("File found! Loading events...");
 
-        // Step B: Read the file
-        // "try" automatically closes the file when we are done (prevents errors)
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            
-            String currentLine;
-            // Loop: Read one line at a time until the file ends
-            while ((currentLine = reader.readLine()) != null) {
+        // Events are keyed by id so the journal can replace/remove them while keeping file order
+        java.util.Map<Integer, Event> byId = new java.util.LinkedHashMap<>();
+
+        // Step B: Read the snapshot file
+        // If it doesn't match its checksum, the newest good backup is loaded instead
+        // (the journal below is still replayed on top, which brings back the latest changes)
+        String backupText = null;
+        if (file.exists() && !AtomicFile.verify(file)) {
+            System.out.println(file.getName() + " is damaged (checksum mismatch), looking for a backup...");
+            backupText = newestValidBackup("event-backup-");
+        }
+
+        if (backupText != null) {
+            try {
+                for (Event newEvent : readEventsCsv(new StringReader(backupText))) {
+                    byId.put(newEvent.getId(), newEvent);
+                }
+            } catch (IOException e) {
+                System.out.println("Error loading events: " + e.getMessage());
+            }
+        } else if (file.exists() && file.getPath().equals(BINARY_FILE_PATH)) {
+            try {
+                // Each record is decoded straight from the bytes (no text parsing). All of them
+                // are decoded now, because EventStore and its indexes need Event objects.
+                // read() instead of open(): a mapping would stay open and on Windows
+                // stop the next save from replacing event.bin.
+                BinarySnapshot snapshot = BinarySnapshot.read(file);
+                noteEventId(snapshot.highestId());
+                for (int i = 0; i < snapshot.size(); i++) {
+                    Event newEvent = snapshot.eventAt(i);
+                    byId.put(newEvent.getId(), newEvent);
+                }
+            } catch (Exception e) {
+                System.out.println("Error loading events: " + e.getMessage());
+                e.printStackTrace();
+            }
+        } else if (file.exists()) {
+            // "try" automatically closes the file when we are done (prevents errors)
+            try (CsvRecordReader csv = new CsvRecordReader(new FileReader(file))) {
                 
-                // Ignore empty lines
-                if (currentLine.trim().isEmpty()) continue;
-
-                // Step C: Break the line into pieces
-                // Input:  "101, Study, Math revision, 2025-10-01T09:00, 2025-10-01T11:00, 30"
-                // Result: ["101", "Study", "Math revision", "2025...", "2025...", "30"]
-                String[] parts = currentLine.split(",");
-
-                // Step D: Convert text to real data
-                if (parts.length >= 5) {
-                    // 1. Convert text "101" to number 101
-                    int id = Integer.parseInt(parts[0].trim());
-                    
-                    // 2. Get the simple text parts (unescape commas)
-                    String title = unescapeCsvField(parts[1].trim());
-                    String description = unescapeCsvField(parts[2].trim());
-                    
-                    // 3. Convert text dates to Java Date objects
-                    LocalDateTime start = LocalDateTime.parse(parts[3].trim(), DATE_FORMAT);
-                    LocalDateTime end   = LocalDateTime.parse(parts[4].trim(), DATE_FORMAT);
-                    
-                    // 4. Get reminder minutes (default to 0 if not present)
-                    int reminderMinutes = 0;
-                    if (parts.length >= 6) {
-                        try {
-                            reminderMinutes = Integer.parseInt(parts[5].trim());
-                        } catch (NumberFormatException e) {
-                            reminderMinutes = 0;
-                        }
+                // Loop: Read one record at a time until the file ends (empty lines are skipped)
+                while (csv.next()) {
+                    if (csv.fieldEquals(0, HIGHEST_ID_TAG)) { // "#highestId,57" (first line)
+                        noteEventId(csv.getInt(1, 0));
+                        continue;
                     }
 
-                    // 5. Create the Event and add to our list
-                    Event newEvent = new Event(id, title, description, start, end, reminderMinutes);
-                    eventList.add(newEvent);
+                    // Step C: Convert the record into an Event
+                    // Input:  "101, Study, Math revision, 2025-10-01T09:00, 2025-10-01T11:00, 30"
+                    Event newEvent = readEvent(csv, 0);
+                    if (newEvent != null) {
+                        byId.put(newEvent.getId(), newEvent);
+                    }
                 }
+            } catch (Exception e) {// Catch any error that occurs during reading/parsing
+                System.out.println("Error loading events: " + e.getMessage());
+                e.printStackTrace();
             }
-        } catch (Exception e) {// Catch any error that occurs during reading/parsing
-            System.out.println("Error loading events: " + e.getMessage());
-            e.printStackTrace();
         }
+
+        // Step D: Replay the journal on top of the snapshot
+        // (a journal being compacted is older than the live one, so it goes first)
+        int replayed = replayJournal(new File(JOURNAL_COMPACTING_PATH), byId)
+                     + replayJournal(new File(JOURNAL_PATH), byId);
+        if (replayed > 0) {
+            System.out.println("Replayed " + replayed + " journal record(s).");
+        }
+
+        eventList.addAll(byId.values());
+        for (Event e : eventList) noteEventId(e.getId());
         
         System.out.println("Loaded " + eventList.size() + " event(s) from file.");
         System.out.println("=== END DEBUG ===");
         return eventList;
     }
 
+    /** event.bin or event.csv, whichever was saved last (event.csv if neither exists) */
+    private static File latestSnapshotFile() {
+        File csvFile = new File(FILE_PATH);
+        File binFile = new File(BINARY_FILE_PATH);
+        if (binFile.exists() && (!csvFile.exists() || binFile.lastModified() >= csvFile.lastModified())) {
+            return binFile;
+        }
+        return csvFile;
+    }
+
+    /** Snapshot file that saves go to */
+    private static String snapshotPath() {
+        return BINARY_SNAPSHOT ? BINARY_FILE_PATH : FILE_PATH;
+    }
+
+    /**
+     * Write a full snapshot in the configured format
+     * @param highestId highest event id used so far, stored with the snapshot so
+     *                  ids of deleted events are not handed out again after a restart
+     */
+    private static void writeSnapshot(OutputStream out, List<Event> events, int highestId) throws IOException {
+        if (BINARY_SNAPSHOT) {
+            BinarySnapshot.write(out, events, highestId);
+        } else {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out));
+            int highest = highestId;
+            for (Event e : events) highest = Math.max(highest, e.getId());
+            writer.write(HIGHEST_ID_TAG + "," + highest); // too few columns to be read as an event
+            writer.newLine();
+            writeEventsCsv(writer, events);
+            writer.flush();
+        }
+    }
+
+    /**
+     * Convert the current CSV record into an Event
+     * Fields (starting at column "first"): id,title,description,start,end[,reminderMinutes]
+     * @param first column of the id (0 for event.csv, 1 for journal records)
+     * @return the Event, or null if the record has too few columns
+     */
+    private static Event readEvent(CsvRecordReader csv, int first) {
+        return readEvent(csv, first, csv.fieldCount());
+    }
+
+    /** @param fieldCount number of fields of the record (without a trailing journal checksum) */
+    private static Event readEvent(CsvRecordReader csv, int first, int fieldCount) {
+        int columns = fieldCount - first;
+        if (columns < 5) return null;
+
+        // 1. Convert text "101" to number 101 (read straight from the line, no substrings)
+        int id = csv.getInt(first);
+
+        // 2. Get the simple text parts (commas unescaped); repeated texts share one String
+        String title = StringPool.intern(csv.getString(first + 1));
+        String description = StringPool.intern(csv.getString(first + 2));
+
+        // 3. Convert text dates to Java Date objects
+        LocalDateTime start = csv.getDateTime(first + 3);
+        LocalDateTime end   = csv.getDateTime(first + 4);
+
+        // 4. Get reminder minutes (default to 0 if not present or not a number)
+        int reminderMinutes = columns >= 6 ? csv.getInt(first + 5, 0) : 0;
+
+        // 5. Create the Event
+        return new Event(id, title, description, start, end, reminderMinutes);
+    }
+
+    /**
+     * Combine all event data into one comma-separated string
+     * Example: "101,Study,Math revision,2025-10-01T09:00,2025-10-01T11:00,30"
+     */
+    private static String toCsvLine(Event event) {
+        return String.format("%d,%s,%s,%s,%s,%d",
+            event.getId(),
+            escapeCsvField(event.getTitle()),
+            escapeCsvField(event.getDescription()),
+            event.getStart().format(DATE_FORMAT),
+            event.getEnd().format(DATE_FORMAT),
+            event.getReminderMinutes()
+        );
+    }
+
+    /**
+     * Write every event to the given file, one CSV line per event
+     */
+    private static void writeEventsCsv(File target, List<Event> events) throws IOException {
+        // "BufferedWriter" is like a fast typewriter
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(target))) {
+            writeEventsCsv(writer, events);
+        }
+    }
+
+    private static void writeEventsCsv(BufferedWriter writer, List<Event> events) throws IOException {
+        for (Event event : events) {
+            writer.write(toCsvLine(event));
+            writer.newLine(); // Press "Enter" to go to next line
+        }
+    }
+
     
     // 3. SAVING (Take List -> Write to File)
-    public static void saveEvents(List<Event> eventsToSave) {
+    /**
+     * Rewrite the whole snapshot. The journal is discarded afterwards because
+     * the snapshot now already contains every change.
+     * @throws IOException if the snapshot could not be written (the old one and the journal are kept)
+     */
+    public static void saveEvents(List<Event> eventsToSave) throws IOException {
         
         File folder = new File(System.getProperty("user.dir") + File.separator + "data");
     if (!folder.exists()) {
         folder.mkdir(); 
     }
-        // "BufferedWriter" is like a fast typewriter
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(FILE_PATH))) {
-            
-            for (Event event : eventsToSave) {
-                
-                // Step A: Combine all data into one comma-separated string
-                // Example: "101,Study,Math revision,2025-10-01T09:00,2025-10-01T11:00,30"
-                String csvLine = String.format("%d,%s,%s,%s,%s,%d",
-                    event.getId(),
-                    escapeCsvField(event.getTitle()),
-                    escapeCsvField(event.getDescription()),
-                    event.getStart().format(DATE_FORMAT),
-                    event.getEnd().format(DATE_FORMAT),
-                    event.getReminderMinutes()
-                );
-                
-                // Step B: Write it to the file
-                writer.write(csvLine);
-                writer.newLine(); // Press "Enter" to go to next line
-            }
+        synchronized (JOURNAL_LOCK) {
+            // Written to a temp file and moved over the snapshot, so a crash can't leave it half written
+            int highestId = highestEventId;
+            AtomicFile.write(new File(snapshotPath()), out -> writeSnapshot(out, eventsToSave, highestId));
+
+            // Any compaction still running was based on an older list, so it must not install
+            snapshotGeneration++;
+            new File(JOURNAL_PATH).delete();
+            new File(JOURNAL_COMPACTING_PATH).delete();
             
             System.out.println("Saved successfully!");
-            
+        }
+    }
+
+    // ================ EVENT JOURNAL ================
+    // Instead of rewriting the snapshot (event.csv / event.bin) on every change, each add/update/delete is
+    // appended to event.journal (PersistenceQueue batches the records of a burst).
+    // loadEvents() replays the journal on top of the snapshot, and a background
+    // compactor folds it back into the snapshot once it grows past
+    // JOURNAL_COMPACT_THRESHOLD_BYTES.
+    //
+    // Record format (one per line):
+    //   A,<event csv line>   event added
+    //   U,<event csv line>   event updated
+    //   D,<id>               event deleted
+    //   B,<n>                the next n records are one batch (applied all together or not at all)
+    // Each line ends with ",~<crc>" (CRC-32C of the record in hex), so replay can tell a
+    // line cut off by a crash from a good one. Journals written before that have no
+    // checksums and are read as they are.
+    // The journal is always UTF-8, whatever the platform charset, so the text read back
+    // is exactly the bytes the checksum was computed over.
+    private static final String JOURNAL_PATH = System.getProperty("user.dir") + File.separator + "data" + File.separator + "event.journal";
+    private static final String JOURNAL_COMPACTING_PATH = JOURNAL_PATH + ".compacting";
+    private static final long JOURNAL_COMPACT_THRESHOLD_BYTES = 256 * 1024;
+
+    private static final Object JOURNAL_LOCK = new Object();
+    private static long snapshotGeneration = 0; // bumped whenever the snapshot is rewritten in full
+    private static java.util.concurrent.ExecutorService compactor = null;
+    private static boolean compactionRunning = false;
+    private static boolean compactionFailed = false;   // retry only once the journal has grown again
+
+    // Highest event id ever loaded or journaled (guarded by JOURNAL_LOCK). Every snapshot
+    // stores it: as a "#highestId,<id>" first line in event.csv, in the header of event.bin.
+    private static final String HIGHEST_ID_TAG = "#highestId";
+    private static int highestEventId = 0;
+
+    /** Remember that an event id has been used */
+    private static void noteEventId(int id) {
+        synchronized (JOURNAL_LOCK) {
+            if (id > highestEventId) highestEventId = id;
+        }
+    }
+
+    /**
+     * Highest event id used so far, including events deleted before the last
+     * snapshot (valid after loadEvents). New ids must be above it.
+     */
+    public static int highestEventId() {
+        synchronized (JOURNAL_LOCK) {
+            return highestEventId;
+        }
+    }
+
+    /** Journal record for an added event */
+    public static String journalAddRecord(Event event) {
+        noteEventId(event.getId());
+        return "A," + toCsvLine(event);
+    }
+
+    /** Journal record for an updated event */
+    public static String journalUpdateRecord(Event event) {
+        noteEventId(event.getId());
+        return "U," + toCsvLine(event);
+    }
+
+    /** Journal record for a deleted event */
+    public static String journalDeleteRecord(Event event) {
+        noteEventId(event.getId());
+        return "D," + event.getId();
+    }
+
+    /**
+     * Wrap several records into one batch ("B,n" header), so that replay applies
+     * them all or none of them
+     */
+    public static List<String> journalBatch(List<String> records) {
+        if (records.size() <= 1) return records;
+        List<String> batch = new ArrayList<>(records.size() + 1);
+        batch.add("B," + records.size());
+        batch.addAll(records);
+        return batch;
+    }
+
+    /**
+     * Append records to the journal with one write and one sync to disk (group commit),
+     * then start a compaction if the journal has grown too large.
+     * @param currentEvents gives the full event list after these changes (only asked for when compacting)
+     * @throws IOException if the records could not be written
+     */
+    public static void appendJournal(List<String> records, java.util.function.Supplier<List<Event>> currentEvents) throws IOException {
+        File folder = new File(System.getProperty("user.dir") + File.separator + "data");
+        if (!folder.exists()) {
+            folder.mkdir();
+        }
+
+        synchronized (JOURNAL_LOCK) {
+            File journal = new File(JOURNAL_PATH);
+            // A crash (or a failed write) mid-append may have left half a line at the end;
+            // checking the last byte is cheap next to the sync below
+            long cut = AtomicFile.cutTornTail(journal);
+            if (cut > 0) System.out.println("Cut off a torn journal record (" + cut + " bytes)");
+
+            FileOutputStream out = new FileOutputStream(journal, true);
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, java.nio.charset.StandardCharsets.UTF_8))) {
+                for (String record : records) {
+                    writer.write(withChecksum(record));
+                    writer.newLine();
+                }
+                writer.flush();
+                out.getFD().sync(); // the records are on disk once this returns
+            }
+
+            if (compactionRunning) return;
+            File compacting = new File(JOURNAL_COMPACTING_PATH);
+            boolean large = journal.length() >= JOURNAL_COMPACT_THRESHOLD_BYTES;
+            if (compacting.exists()) {
+                // Left over from a failed compaction or from a run that ended mid-compaction:
+                // fold it into a new snapshot now (after a failure, once the journal has grown again)
+                if (!compactionFailed || large) {
+                    startCompaction(currentEvents.get(), snapshotGeneration);
+                }
+            } else if (large) {
+                // Freeze the current journal; new records go to a fresh event.journal
+                if (journal.renameTo(compacting)) {
+                    startCompaction(currentEvents.get(), snapshotGeneration); // must not change while compacting
+                }
+            }
+        }
+    }
+
+    /** A journal line: the record and its checksum */
+    private static String withChecksum(String record) {
+        return record + ",~" + recordChecksum(record);
+    }
+
+    private static String recordChecksum(String record) {
+        java.util.zip.CRC32C crc = new java.util.zip.CRC32C();
+        crc.update(record.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * Fold the frozen journal into a new snapshot on a background thread.
+     * The snapshot is written (and synced) to a temp file first and only
+     * installed if no full save happened in the meantime.
+     * The snapshot holds every change so far, so it also covers the records
+     * that went to the live journal after the freeze (replaying them again is harmless).
+     */
+    private static void startCompaction(List<Event> snapshot, long generation) {
+        compactionRunning = true;
+        int highestId = highestEventId;
+        if (compactor == null) {
+            compactor = java.util.concurrent.Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "event-journal-compactor");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        compactor.submit(() -> {
+            File target = new File(snapshotPath());
+            AtomicFile.Pending pending = null;
+            try {
+                pending = AtomicFile.prepare(target, out -> writeSnapshot(out, snapshot, highestId));
+                synchronized (JOURNAL_LOCK) {
+                    compactionRunning = false;
+                    if (generation != snapshotGeneration) {
+                        pending.discard(); // a newer full save already replaced the snapshot
+                        return;
+                    }
+                    pending.commit();
+                    new File(JOURNAL_COMPACTING_PATH).delete();
+                    snapshotGeneration++;
+                    compactionFailed = false;
+                }
+                System.out.println("Journal compacted into " + target.getName() + " (" + snapshot.size() + " events)");
+            } catch (IOException | RuntimeException e) {
+                // Leave the frozen journal in place; loadEvents() still replays it
+                // and the next appendJournal() tries again
+                if (pending != null) pending.discard();
+                synchronized (JOURNAL_LOCK) {
+                    compactionRunning = false;
+                    compactionFailed = true;
+                }
+                System.out.println("Error compacting journal: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Apply every record of a journal file to the map.
+     * Records after a "B,n" header are applied only once all n of them have
+     * been read, so a batch cut short by a crash is ignored as a whole.
+     * A line whose checksum doesn't match (or that has none after lines that
+     * had one) is a torn record and is skipped together with its batch.
+     * @return number of records applied
+     */
+    private static int replayJournal(File journal, java.util.Map<Integer, Event> byId) {
+        if (!journal.exists()) return 0;
+        int applied = 0;
+        List<Object> batch = null; // records of the open batch: an Event (A/U) or an Integer id (D)
+        int batchSize = 0;
+        boolean checksummed = false; // lines written since records carry a checksum
+        try (CsvRecordReader csv = new CsvRecordReader(new FileReader(journal, java.nio.charset.StandardCharsets.UTF_8))) {
+            while (csv.next()) {
+                int fields = csv.fieldCount();
+                if (fields < 2) continue;
+                Object record;
+                try {
+                    String last = csv.getString(fields - 1);
+                    if (last.startsWith("~")) {
+                        String line = csv.line();
+                        String text = line.substring(0, line.lastIndexOf(",~"));
+                        if (!last.substring(1).equals(recordChecksum(text))) throw new IOException("checksum mismatch");
+                        checksummed = true;
+                        fields--;
+                    } else if (checksummed) {
+                        throw new IOException("no checksum");
+                    }
+
+                    if (csv.fieldEquals(0, "B")) {
+                        if (batch != null) System.out.println("Ignoring incomplete journal batch of " + batchSize + " record(s)");
+                        batchSize = csv.getInt(1);
+                        batch = new ArrayList<>(batchSize);
+                        continue;
+                    } else if (csv.fieldEquals(0, "A") || csv.fieldEquals(0, "U")) {
+                        record = readEvent(csv, 1, fields);
+                        if (record == null) throw new IOException("too few columns");
+                    } else if (csv.fieldEquals(0, "D")) {
+                        record = csv.getInt(1);
+                    } else {
+                        continue;
+                    }
+                } catch (Exception e) {
+                    // A torn last line (crash mid-append) is skipped, and so is the batch it belongs to
+                    System.out.println("Skipping bad journal record: " + csv.line());
+                    batch = null;
+                    continue;
+                }
+
+                if (batch == null) {
+                    applyRecord(record, byId);
+                    applied++;
+                } else {
+                    batch.add(record);
+                    if (batch.size() == batchSize) {
+                        for (Object r : batch) applyRecord(r, byId);
+                        applied += batch.size();
+                        batch = null;
+                    }
+                }
+            }
         } catch (IOException e) {
-            System.out.println("Error saving file: " + e.getMessage());
+            System.out.println("Error reading journal: " + e.getMessage());
+        }
+        if (batch != null) {
+            System.out.println("Ignoring incomplete journal batch of " + batchSize + " record(s)");
+        }
+        return applied;
+    }
+
+    private static void applyRecord(Object record, java.util.Map<Integer, Event> byId) {
+        if (record instanceof Event) {
+            Event event = (Event) record;
+            byId.put(event.getId(), event);
+        } else {
+            byId.remove((Integer) record);
+            noteEventId((Integer) record); // a deleted id still counts as used
         }
     }
 
+    // Backups live in data/backups as deduplicated chunks, monthly ZIP archives
+    // and older plain .csv files, all listed in data/backups/index.csv (see BackupStore).
+    // Older backups are thinned out after each new backup (see BackupRetention).
+    private static final String BACKUPS_DIR = System.getProperty("user.dir") + File.separator + "data" + File.separator + "backups";
+    private static final BackupStore BACKUPS = new BackupStore(new File(BACKUPS_DIR));
+    private static final BackupRetention BACKUP_RETENTION = BackupRetention.fromSystemProperties();
+
     /**
-     * Create a timestamped backup of the events CSV under data/backups
+     * Back up the events under data/backups. Only chunks that changed since
+     * earlier backups are stored, and nothing at all if the events are the
+     * same as in the last backup.
      * @param events list of events to write
-     * @return path to the created backup file
+     * @return path of the backup (pass its file name to restoreFromBackup)
      * @throws IOException if write fails
      */
     public static String backupEvents(List<Event> events) throws IOException {
-        File backupsDir = new File(System.getProperty("user.dir") + File.separator + "data" + File.separator + "backups");
-        if (!backupsDir.exists()) {
-            if (!backupsDir.mkdirs()) {
-                throw new IOException("Could not create backups directory: " + backupsDir.getPath());
-            }
+        StringWriter text = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(text)) {
+            writeEventsCsv(writer, events);
         }
+        return storeBackup("event-backup-", text.toString());
+    }
 
+    private static String storeBackup(String prefix, String text) throws IOException {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
-        File backupFile = new File(backupsDir, "event-backup-" + timestamp + ".csv");
-
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(backupFile))) {
-            for (Event event : events) {
-                String csvLine = String.format("%d,%s,%s,%s,%s,%d",
-                        event.getId(),
-                        escapeCsvField(event.getTitle()),
-                        escapeCsvField(event.getDescription()),
-                        event.getStart().format(DATE_FORMAT),
-                        event.getEnd().format(DATE_FORMAT),
-                        event.getReminderMinutes()
-                );
-                writer.write(csvLine);
-                writer.newLine();
+        String name = BACKUPS.store(prefix, prefix + timestamp + ".csv", text);
+        if (!name.startsWith(prefix + timestamp)) {
+            System.out.println("Nothing changed since backup " + name + ", no new backup written");
+        } else {
+            try {
+                int pruned = BACKUPS.applyRetention(BACKUP_RETENTION, LocalDateTime.now());
+                if (pruned > 0) System.out.println("Archived or removed " + pruned + " old backups");
+            } catch (IOException e) {
+                System.out.println("Error cleaning up old backups: " + e.getMessage());
             }
         }
+        return new File(BACKUPS_DIR, name).getAbsolutePath();
+    }
+
+    /** Reader over a backup listed in the backup index, or any other CSV file */
+    private static Reader openBackup(String backupFilePath) throws IOException {
+        File file = new File(backupFilePath);
+        if (BACKUPS.contains(file.getName())) {
+            return new StringReader(BACKUPS.read(file.getName()));
+        }
+        if (file.exists()) {
+            return new FileReader(file);
+        }
+        throw new IOException("Backup file not found: " + backupFilePath);
+    }
 
-        return backupFile.getAbsolutePath();
+    /**
+     * Text of the newest intact backup of one kind (e.g. "event-backup-"),
+     * or null if there is none
+     */
+    private static String newestValidBackup(String prefix) {
+        try {
+            List<String> names = BACKUPS.names();
+            for (int i = names.size() - 1; i >= 0; i--) {
+                String name = names.get(i);
+                if (!name.startsWith(prefix)) continue;
+                try {
+                    String text = BACKUPS.read(name); // checks the backup's hash
+                    System.out.println("Recovering from backup " + name);
+                    return text;
+                } catch (IOException e) {
+                    System.out.println("Backup " + name + " can't be used: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading backup index: " + e.getMessage());
+        }
+        System.out.println("No usable backup found.");
+        return null;
     }
 
     /**
-     * Restore events from a specific backup file
-     * @param backupFilePath path to the backup file
+     * Restore events from a specific backup
+     * @param backupFilePath path to the backup (a name from listBackupFiles inside data/backups)
      * @return List of events loaded from backup
      * @throws IOException if read fails
      */
     public static List<Event> restoreFromBackup(String backupFilePath) throws IOException {
-        List<Event> eventList = new ArrayList<>();
-        File file = new File(backupFilePath);
+        return readEventsCsv(openBackup(backupFilePath));
+    }
 
+    /**
+     * Export events to a CSV file (same format as event.csv), e.g. to open them in a spreadsheet
+     * @param path file to write
+     * @throws IOException if write fails
+     */
+    public static void exportEventsCsv(String path, List<Event> events) throws IOException {
+        writeEventsCsv(new File(path), events);
+    }
+
+    /**
+     * Import events from a CSV file in event.csv format
+     * @param path file to read
+     * @return the events in file order
+     * @throws IOException if the file can't be read
+     */
+    public static List<Event> importEventsCsv(String path) throws IOException {
+        File file = new File(path);
         if (!file.exists()) {
-            throw new IOException("Backup file not found: " + backupFilePath);
+            throw new IOException("File not found: " + path);
         }
+        return readEventsCsv(new FileReader(file));
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String currentLine;
-            while ((currentLine = reader.readLine()) != null) {
-                if (currentLine.trim().isEmpty()) continue;
-
-                String[] parts = currentLine.split(",");
-                if (parts.length >= 5) {
-                    int id = Integer.parseInt(parts[0].trim());
-                    String title = unescapeCsvField(parts[1].trim());
-                    String description = unescapeCsvField(parts[2].trim());
-                    LocalDateTime start = LocalDateTime.parse(parts[3].trim(), DATE_FORMAT);
-                    LocalDateTime end = LocalDateTime.parse(parts[4].trim(), DATE_FORMAT);
-                    
-                    int reminderMinutes = 0;
-                    if (parts.length >= 6) {
-                        try {
-                            reminderMinutes = Integer.parseInt(parts[5].trim());
-                        } catch (NumberFormatException e) {
-                            reminderMinutes = 0;
-                        }
-                    }
-
-                    Event newEvent = new Event(id, title, description, start, end, reminderMinutes);
+    private static List<Event> readEventsCsv(Reader in) throws IOException {
+        List<Event> eventList = new ArrayList<>();
+        try (CsvRecordReader csv = new CsvRecordReader(in)) {
+            while (csv.next()) {
+                Event newEvent = readEvent(csv, 0);
+                if (newEvent != null) {
                     eventList.add(newEvent);
                 }
             }
         }
-
         return eventList;
     }
 
     /**
-     * List all backup files in the backups directory
+     * List all backups, oldest first (read from the backup index, not the directory)
      * @return Array of backup file names
      */
     public static String[] listBackupFiles() {
-        File backupsDir = new File(System.getProperty("user.dir") + File.separator + "data" + File.separator + "backups");
-        if (!backupsDir.exists() || !backupsDir.isDirectory()) {
-            return new String[0];
-        }
-
-        File[] files = backupsDir.listFiles((dir, name) -> name.endsWith(".csv"));
-        if (files == null || files.length == 0) {
+        try {
+            return BACKUPS.names().toArray(new String[0]);
+        } catch (IOException e) {
+            System.out.println("Error reading backup index: " + e.getMessage());
             return new String[0];
         }
-
-        String[] fileNames = new String[files.length];
-        for (int i = 0; i < files.length; i++) {
-            fileNames[i] = files[i].getName();
-        }
-        return fileNames;
     }
     
     // ================ ADDITIONAL FIELDS MANAGEMENT ================
@@ -255,22 +669,26 @@ public class FileManager {
             System.out.println("No additional fields file found.");
             return fieldsMap;
         }
+
+        // A damaged file is replaced by the newest good backup (if there is one)
+        String backupText = null;
+        if (!AtomicFile.verify(file)) {
+            System.out.println("additional.csv is damaged (checksum mismatch), looking for a backup...");
+            backupText = newestValidBackup("additional-backup-");
+        }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String currentLine;
+        try (CsvRecordReader csv = new CsvRecordReader(backupText != null ? new StringReader(backupText) : new FileReader(file))) {
             boolean firstLine = true;
             
-            while ((currentLine = reader.readLine()) != null) {
-                if (currentLine.trim().isEmpty()) continue;
-                
+            while (csv.next()) {
                 // Skip header line
-                if (firstLine && currentLine.startsWith("eventId")) {
+                if (firstLine && csv.lineStartsWith("eventId")) {
                     firstLine = false;
                     continue;
                 }
                 firstLine = false;
                 
-                AdditionalFields fields = AdditionalFields.fromCsvLine(currentLine);
+                AdditionalFields fields = AdditionalFields.fromRecord(csv);
                 if (fields != null) {
                     fieldsMap.put(fields.getEventId(), fields);
                 }
@@ -285,14 +703,15 @@ public class FileManager {
     /**
      * Save additional fields to additional.csv
      * @param fieldsMap Map of eventId to AdditionalFields
+     * @throws IOException if the file could not be written (the old one is kept)
      */
-    public static void saveAdditionalFields(java.util.Map<Integer, AdditionalFields> fieldsMap) {
+    public static void saveAdditionalFields(java.util.Map<Integer, AdditionalFields> fieldsMap) throws IOException {
         File folder = new File(System.getProperty("user.dir") + File.separator + "data");
         if (!folder.exists()) {
             folder.mkdir();
         }
         
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(ADDITIONAL_FILE_PATH))) {
+        AtomicFile.writeLines(new File(ADDITIONAL_FILE_PATH), writer -> {
             // Write header
             writer.write("eventId,location,category,priority");
             writer.newLine();
@@ -302,31 +721,20 @@ public class FileManager {
                 writer.write(fields.toCsvString());
                 writer.newLine();
             }
-            
-            System.out.println("Additional fields saved successfully!");
-        } catch (IOException e) {
-            System.out.println("Error saving additional fields: " + e.getMessage());
-        }
+        });
+        
+        System.out.println("Additional fields saved successfully!");
     }
     
     /**
-     * Backup additional fields
+     * Backup additional fields (skipped if they are the same as in the last backup)
      * @param fieldsMap Map of additional fields
-     * @return Path to backup file
+     * @return Path of the backup (pass its file name to restoreAdditionalFields)
      * @throws IOException if backup fails
      */
     public static String backupAdditionalFields(java.util.Map<Integer, AdditionalFields> fieldsMap) throws IOException {
-        File backupsDir = new File(System.getProperty("user.dir") + File.separator + "data" + File.separator + "backups");
-        if (!backupsDir.exists()) {
-            if (!backupsDir.mkdirs()) {
-                throw new IOException("Could not create backups directory");
-            }
-        }
-        
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
-        File backupFile = new File(backupsDir, "additional-backup-" + timestamp + ".csv");
-        
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(backupFile))) {
+        StringWriter text = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(text)) {
             writer.write("eventId,location,category,priority");
             writer.newLine();
             
@@ -336,7 +744,7 @@ public class FileManager {
             }
         }
         
-        return backupFile.getAbsolutePath();
+        return storeBackup("additional-backup-", text.toString());
     }
     
     /**
@@ -347,26 +755,18 @@ public class FileManager {
      */
     public static java.util.Map<Integer, AdditionalFields> restoreAdditionalFields(String backupFilePath) throws IOException {
         java.util.Map<Integer, AdditionalFields> fieldsMap = new java.util.HashMap<>();
-        File file = new File(backupFilePath);
         
-        if (!file.exists()) {
-            throw new IOException("Backup file not found: " + backupFilePath);
-        }
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String currentLine;
+        try (CsvRecordReader csv = new CsvRecordReader(openBackup(backupFilePath))) {
             boolean firstLine = true;
             
-            while ((currentLine = reader.readLine()) != null) {
-                if (currentLine.trim().isEmpty()) continue;
-                
-                if (firstLine && currentLine.startsWith("eventId")) {
+            while (csv.next()) {
+                if (firstLine && csv.lineStartsWith("eventId")) {
                     firstLine = false;
                     continue;
                 }
                 firstLine = false;
                 
-                AdditionalFields fields = AdditionalFields.fromCsvLine(currentLine);
+                AdditionalFields fields = AdditionalFields.fromRecord(csv);
                 if (fields != null) {
                     fieldsMap.put(fields.getEventId(), fields);
                 }
@@ -383,13 +783,31 @@ public class FileManager {
      * Save recurrence data to recurrent.csv
      * @param eventId The event ID
      * @param recurrence The recurrence object
+     * @throws IOException if recurrent.csv could not be read or written
      */
-    public static void saveRecurrence(int eventId, Recurrence recurrence) {
-        if (recurrence == null || !recurrence.isRecurring()) {
-            return; // Don't save non-recurring events
+    public static void saveRecurrence(int eventId, Recurrence recurrence) throws IOException {
+        java.util.Map<Integer, Recurrence> one = new java.util.HashMap<>();
+        one.put(eventId, recurrence);
+        saveRecurrences(one);
+    }
+
+    /**
+     * Save the recurrence data of several events with one rewrite of recurrent.csv
+     * (rows these events had before are replaced)
+     * @param recurrences event ID -> recurrence (non-recurring ones are skipped)
+     * @throws IOException if recurrent.csv could not be read or written
+     */
+    public static void saveRecurrences(java.util.Map<Integer, Recurrence> recurrences) throws IOException {
+        java.util.Map<Integer, Recurrence> toSave = new java.util.LinkedHashMap<>();
+        for (java.util.Map.Entry<Integer, Recurrence> entry : recurrences.entrySet()) {
+            Recurrence recurrence = entry.getValue();
+            if (recurrence != null && recurrence.isRecurring()) { // Don't save non-recurring events
+                toSave.put(entry.getKey(), recurrence);
+            }
         }
+        if (toSave.isEmpty()) return;
         
-        // Load existing recurrence data
+        // Load existing recurrence data (without older rows of these events)
         List<String> lines = new ArrayList<>();
         File file = new File(RECURRENT_FILE_PATH);
         
@@ -398,16 +816,36 @@ public class FileManager {
             try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
                 String line;
                 while ((line = reader.readLine()) != null) {
+                    if (toSave.containsKey(rowEventId(line))) continue;
                     lines.add(line);
                 }
-            } catch (IOException e) {
-                System.out.println("Error reading recurrent.csv: " + e.getMessage());
             }
         } else {
             // Add header if file doesn't exist
-            lines.add("eventId,recurrentInterval,recurrentTimes,recurrentEndDate");
+            lines.add("eventId,recurrentInterval,recurrentTimes,recurrentEndDate,recurrentRule");
+        }
+        
+        for (java.util.Map.Entry<Integer, Recurrence> entry : toSave.entrySet()) {
+            lines.add(recurrenceCsvLine(entry.getKey(), entry.getValue()));
         }
         
+        // Write back to file
+        writeLinesAtomically(file, lines);
+        System.out.println("Recurrence data saved for " + toSave.size() + " event(s)");
+    }
+
+    /** Event id at the start of a recurrent.csv row, or null (header, bad line) */
+    private static Integer rowEventId(String line) {
+        int comma = line.indexOf(',');
+        try {
+            return Integer.valueOf((comma < 0 ? line : line.substring(0, comma)).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** One recurrent.csv row: eventId,interval,count,endDate[,ruleParts] */
+    private static String recurrenceCsvLine(int eventId, Recurrence recurrence) {
         // Convert recurrence to CSV format
         String interval = "";
         if (recurrence.getFrequency() == Recurrence.Frequency.DAILY) {
@@ -416,6 +854,8 @@ public class FileManager {
             interval = recurrence.getInterval() + "w";
         } else if (recurrence.getFrequency() == Recurrence.Frequency.MONTHLY) {
             interval = recurrence.getInterval() + "m";
+        } else if (recurrence.getFrequency() == Recurrence.Frequency.YEARLY) {
+            interval = recurrence.getInterval() + "y";
         }
         
         String endDateStr = "0";
@@ -426,22 +866,52 @@ public class FileManager {
         String csvLine = String.format("%d,%s,%d,%s", 
             eventId, 
             interval, 
-            0, // recurrentTimes - we use 0 when using endDate
+            recurrence.getCount(), // recurrentTimes - COUNT, 0 when only the end date limits the series
             endDateStr
         );
-        
-        lines.add(csvLine);
-        
-        // Write back to file
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+        // BYDAY/BYMONTHDAY/BYSETPOS/EXDATE, only for rules that have them
+        String ruleParts = recurrence.getRuleParts();
+        if (!ruleParts.isEmpty()) {
+            csvLine += "," + escapeCsvField(ruleParts);
+        }
+        return csvLine;
+    }
+    
+    /**
+     * Remove the recurrence row of an event from recurrent.csv (used when a series is deleted)
+     * @param eventId The event ID
+     * @throws IOException if recurrent.csv could not be read or written
+     */
+    public static void deleteRecurrence(int eventId) throws IOException {
+        File file = new File(RECURRENT_FILE_PATH);
+        if (!file.exists()) return;
+
+        List<String> lines = new ArrayList<>();
+        boolean removed = false;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts.length >= 4 && parts[0].trim().equals(String.valueOf(eventId))) {
+                    removed = true;
+                    continue;
+                }
+                lines.add(line);
+            }
+        }
+        if (!removed) return;
+
+        writeLinesAtomically(file, lines);
+        System.out.println("Recurrence data removed for event ID: " + eventId);
+    }
+    
+    private static void writeLinesAtomically(File file, List<String> lines) throws IOException {
+        AtomicFile.writeLines(file, writer -> {
             for (String line : lines) {
                 writer.write(line);
                 writer.newLine();
             }
-            System.out.println("Recurrence data saved for event ID: " + eventId);
-        } catch (IOException e) {
-            System.out.println("Error saving recurrence: " + e.getMessage());
-        }
+        });
     }
     
     /**
@@ -456,50 +926,52 @@ public class FileManager {
             System.out.println("No recurrent.csv file found.");
             return recurrenceMap;
         }
+        if (!AtomicFile.verify(file)) {
+            System.out.println("Warning: recurrent.csv is damaged (checksum mismatch), loading what can be read");
+        }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String currentLine;
+        try (CsvRecordReader csv = new CsvRecordReader(new FileReader(file))) {
             boolean firstLine = true;
             
-            while ((currentLine = reader.readLine()) != null) {
-                if (currentLine.trim().isEmpty()) continue;
-                
+            while (csv.next()) {
                 // Skip header line
-                if (firstLine && currentLine.startsWith("eventId")) {
+                if (firstLine && csv.lineStartsWith("eventId")) {
                     firstLine = false;
                     continue;
                 }
                 firstLine = false;
                 
-                String[] parts = currentLine.split(",");
-                if (parts.length >= 4) {
+                if (csv.fieldCount() >= 4) {
                     try {
-                        int eventId = Integer.parseInt(parts[0].trim());
-                        String intervalStr = parts[1].trim(); // e.g., "1d", "2w"
-                        // int recurrentTimes = Integer.parseInt(parts[2].trim()); // Not used for now
-                        String endDateStr = parts[3].trim();
+                        int eventId = csv.getInt(0);
+                        int recurrentTimes = csv.getInt(2); // COUNT, 0 = none
                         
-                        // Parse interval
-                        char unit = intervalStr.charAt(intervalStr.length() - 1);
-                        int intervalValue = Integer.parseInt(intervalStr.substring(0, intervalStr.length() - 1));
+                        // Parse interval, e.g. "1d", "2w": number followed by a unit letter
+                        char unit = csv.lastChar(1);
+                        int intervalValue = csv.getIntWithoutSuffix(1);
                         
                         Recurrence.Frequency frequency = null;
                         if (unit == 'd') frequency = Recurrence.Frequency.DAILY;
                         else if (unit == 'w') frequency = Recurrence.Frequency.WEEKLY;
                         else if (unit == 'm') frequency = Recurrence.Frequency.MONTHLY;
+                        else if (unit == 'y') frequency = Recurrence.Frequency.YEARLY;
                         
                         // Parse end date
                         LocalDateTime endDate = null;
-                        if (!endDateStr.equals("0")) {
-                            endDate = LocalDateTime.parse(endDateStr + "T00:00:00", DATE_FORMAT);
+                        if (!csv.fieldEquals(3, "0")) {
+                            endDate = csv.getDate(3).atStartOfDay();
                         }
                         
                         if (frequency != null) {
                             Recurrence recurrence = new Recurrence(frequency, intervalValue, endDate);
+                            recurrence.setCount(recurrentTimes);
+                            if (csv.fieldCount() >= 5) {
+                                recurrence.applyRuleParts(csv.getString(4));
+                            }
                             recurrenceMap.put(eventId, recurrence);
                         }
                     } catch (Exception e) {
-                        System.out.println("Error parsing recurrence line: " + currentLine);
+                        System.out.println("Error parsing recurrence line: " + csv.line());
                     }
                 }
             }
@@ -511,39 +983,144 @@ public class FileManager {
     }
 
     // ================ Notified reminders persistence ================
+    // notified_reminders.txt is an append-only log, one record per line:
+    //   F,<id>,<time>   the reminder of event <id> fired at <time>
+    //   R,<id>          forget event <id>
+    //   C               forget everything
+    // Firing a reminder appends one line instead of rewriting the file. Once the
+    // log grows past NOTIFIED_COMPACT_THRESHOLD_BYTES it is rewritten with only
+    // the live entries. Files from older versions hold one id per line; those
+    // are taken to have fired when the file was last written.
+    // A last line without its newline was cut off by a crash; it is dropped
+    // before the log is read or appended to.
     private static final String NOTIFIED_FILE_PATH = "data/notified_reminders.txt";
+    private static final long NOTIFIED_COMPACT_THRESHOLD_BYTES = 64 * 1024;
+    private static final Object NOTIFIED_LOCK = new Object();
+
+    /** Log record for a reminder that fired */
+    public static String notifiedFiredRecord(int id, LocalDateTime at) {
+        return "F," + id + "," + at.format(DATE_FORMAT);
+    }
 
-    public static java.util.Set<Integer> loadNotifiedReminders() {
-        java.util.Set<Integer> set = new java.util.HashSet<>();
+    /** Log record for a forgotten reminder */
+    public static String notifiedRemovedRecord(int id) {
+        return "R," + id;
+    }
+
+    /** Log record that forgets every reminder */
+    public static String notifiedClearRecord() {
+        return "C";
+    }
+
+    public static NotifiedReminders loadNotifiedReminders() {
+        NotifiedReminders notified = new NotifiedReminders();
         File file = new File(NOTIFIED_FILE_PATH);
-        if (!file.exists()) return set;
+        if (!file.exists()) return notified;
+        if (!AtomicFile.verify(file)) {
+            System.out.println("Warning: notified_reminders.txt is damaged (checksum mismatch), loading what can be read");
+        }
+        cutTornNotifiedRecord(file);
+        LocalDateTime legacyTime = LocalDateTime.ofInstant(java.time.Instant.ofEpochMilli(file.lastModified()), java.time.ZoneId.systemDefault());
+        boolean legacy = false;
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             String line;
             while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
+                line = line.trim();
+                if (line.isEmpty()) continue;
                 try {
-                    set.add(Integer.parseInt(line.trim()));
-                } catch (NumberFormatException e) {
-                    // skip invalid lines
+                    String[] parts = line.split(",");
+                    if (parts[0].equals("F") && parts.length >= 3) {
+                        notified.load(Integer.parseInt(parts[1]), LocalDateTime.parse(parts[2], DATE_FORMAT));
+                    } else if (parts[0].equals("R") && parts.length >= 2) {
+                        notified.loadRemove(Integer.parseInt(parts[1]));
+                    } else if (parts[0].equals("C")) {
+                        notified.loadClear();
+                    } else {
+                        notified.load(Integer.parseInt(line), legacyTime); // old format: just the id
+                        legacy = true;
+                    }
+                } catch (RuntimeException e) {
+                    // skip invalid lines (e.g. a record cut off by a crash)
                 }
             }
         } catch (Exception e) {
             System.out.println("Error loading notified reminders: " + e.getMessage());
         }
-        return set;
+        if (legacy) {
+            try {
+                saveNotifiedReminders(notified.snapshot()); // convert, so the times don't move with the next append
+            } catch (IOException e) {
+                System.out.println("Error saving notified reminders: " + e.getMessage());
+            }
+        }
+        return notified;
     }
 
-    public static void saveNotifiedReminders(java.util.Set<Integer> set) {
+    private static void cutTornNotifiedRecord(File file) {
+        synchronized (NOTIFIED_LOCK) {
+            try {
+                long cut = AtomicFile.cutTornTail(file);
+                if (cut > 0) System.out.println("Cut off a torn notified-reminder record (" + cut + " bytes)");
+            } catch (IOException e) {
+                System.out.println("Error repairing notified reminders: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Append records to the log with one write and one sync, and compact the
+     * log if it has grown too large
+     * @param current gives all live entries (only asked for when compacting)
+     * @throws IOException if the records could not be appended (the caller keeps them to try again)
+     */
+    public static void appendNotifiedReminders(List<String> records, java.util.function.Supplier<java.util.Map<Integer, LocalDateTime>> current) throws IOException {
+        if (records.isEmpty()) return;
         File folder = new File("data");
         if (!folder.exists()) folder.mkdir();
-        File file = new File(NOTIFIED_FILE_PATH);
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            for (Integer id : set) {
-                writer.write(String.valueOf(id));
-                writer.newLine();
+
+        synchronized (NOTIFIED_LOCK) {
+            File file = new File(NOTIFIED_FILE_PATH);
+            AtomicFile.dropChecksum(file); // an appended log has no checksum
+            // A failed append may have left half a line; the records must not be glued onto it
+            long cut = AtomicFile.cutTornTail(file);
+            if (cut > 0) System.out.println("Cut off a torn notified-reminder record (" + cut + " bytes)");
+
+            FileOutputStream out = new FileOutputStream(file, true);
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out))) {
+                for (String record : records) {
+                    writer.write(record);
+                    writer.newLine();
+                }
+                writer.flush();
+                out.getFD().sync();
             }
-        } catch (IOException e) {
-            System.out.println("Error saving notified reminders: " + e.getMessage());
+
+            if (file.length() >= NOTIFIED_COMPACT_THRESHOLD_BYTES) {
+                try {
+                    saveNotifiedReminders(current.get());
+                } catch (IOException e) {
+                    // The records are safely appended; compaction is tried again next time
+                    System.out.println("Error compacting notified reminders: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrite the whole log with only the given entries
+     * @throws IOException if it could not be written (the old log is kept)
+     */
+    public static void saveNotifiedReminders(java.util.Map<Integer, LocalDateTime> entries) throws IOException {
+        File folder = new File("data");
+        if (!folder.exists()) folder.mkdir();
+        File file = new File(NOTIFIED_FILE_PATH);
+        synchronized (NOTIFIED_LOCK) {
+            AtomicFile.writeLines(file, writer -> {
+                for (java.util.Map.Entry<Integer, LocalDateTime> entry : entries.entrySet()) {
+                    writer.write(notifiedFiredRecord(entry.getKey(), entry.getValue()));
+                    writer.newLine();
+                }
+            });
         }
     }
 }
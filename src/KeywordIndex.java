@@ -0,0 +1,182 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * KeywordIndex is an inverted index over event titles and descriptions.
+ * - words:    each lower-case word maps to the events that contain it (AND / OR word queries)
+ * - trigrams: each 3-letter piece of text maps to the events that contain it, so a
+ *             "contains" search only checks events that have every piece of the keyword
+ * The lower-cased text of each event is cached, so searching never lowercases it again.
+ */
+public class KeywordIndex {
+
+    private final Map<String, Set<Event>> words = new HashMap<>();
+    private final Map<String, Set<Event>> trigrams = new HashMap<>();
+    private final Map<Event, String[]> folded = new IdentityHashMap<>(); // event -> {lower title, lower description}
+
+    /**
+     * Add an event (call remove() first if its title/description changed)
+     */
+    public void add(Event event) {
+        if (event == null) return;
+        remove(event);
+
+        String[] text = {
+            fold(event.getTitle()),
+            fold(event.getDescription())
+        };
+        folded.put(event, text);
+
+        for (String part : text) {
+            for (String word : tokenize(part)) {
+                words.computeIfAbsent(word, k -> new HashSet<>()).add(event);
+            }
+            for (String gram : trigramsOf(part)) {
+                trigrams.computeIfAbsent(gram, k -> new HashSet<>()).add(event);
+            }
+        }
+    }
+
+    /**
+     * Remove an event using the text it was indexed with
+     */
+    public void remove(Event event) {
+        String[] text = folded.remove(event);
+        if (text == null) return;
+
+        for (String part : text) {
+            for (String word : tokenize(part)) {
+                removePosting(words, word, event);
+            }
+            for (String gram : trigramsOf(part)) {
+                removePosting(trigrams, gram, event);
+            }
+        }
+    }
+
+    public void clear() {
+        words.clear();
+        trigrams.clear();
+        folded.clear();
+    }
+
+    /**
+     * Events whose title or description contains the keyword (case-insensitive),
+     * same result as scanning every event with String.contains
+     */
+    public List<Event> findContaining(String keyword) {
+        String needle = fold(keyword);
+        List<Event> result = new ArrayList<>();
+
+        // Keywords of 3+ letters: only events that have every trigram can match
+        Iterable<Event> candidates;
+        if (needle.length() >= 3) {
+            List<Set<Event>> postings = new ArrayList<>();
+            for (String gram : trigramsOf(needle)) {
+                Set<Event> posting = trigrams.get(gram);
+                if (posting == null) return result; // some piece appears nowhere
+                postings.add(posting);
+            }
+            candidates = intersect(postings);
+        } else {
+            candidates = folded.keySet(); // too short for trigrams: check the cached text
+        }
+
+        for (Event event : candidates) {
+            String[] text = folded.get(event);
+            if (text[0].contains(needle) || text[1].contains(needle)) {
+                result.add(event);
+            }
+        }
+        return sortById(result);
+    }
+
+    /**
+     * Events containing every word of the query (AND)
+     */
+    public List<Event> findAllWords(String query) {
+        List<Set<Event>> postings = new ArrayList<>();
+        for (String word : tokenize(fold(query))) {
+            Set<Event> posting = words.get(word);
+            if (posting == null) return new ArrayList<>();
+            postings.add(posting);
+        }
+        if (postings.isEmpty()) return new ArrayList<>();
+        return sortById(new ArrayList<>(intersect(postings)));
+    }
+
+    /**
+     * Events containing at least one word of the query (OR)
+     */
+    public List<Event> findAnyWord(String query) {
+        Set<Event> union = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String word : tokenize(fold(query))) {
+            Set<Event> posting = words.get(word);
+            if (posting != null) union.addAll(posting);
+        }
+        return sortById(new ArrayList<>(union));
+    }
+
+    // ================== Helpers ==================
+
+    private static String fold(String text) {
+        return text == null ? "" : text.toLowerCase();
+    }
+
+    /** Split lower-case text into words (letters and digits) */
+    private static Set<String> tokenize(String text) {
+        Set<String> out = new HashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                out.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return out;
+    }
+
+    /** All distinct 3-character pieces of the text */
+    private static Set<String> trigramsOf(String text) {
+        Set<String> out = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            out.add(text.substring(i, i + 3));
+        }
+        return out;
+    }
+
+    /** Intersect posting sets, walking the smallest one */
+    private static Set<Event> intersect(List<Set<Event>> postings) {
+        postings.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        Set<Event> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        outer:
+        for (Event event : postings.get(0)) {
+            for (int i = 1; i < postings.size(); i++) {
+                if (!postings.get(i).contains(event)) continue outer;
+            }
+            result.add(event);
+        }
+        return result;
+    }
+
+    private static void removePosting(Map<String, Set<Event>> index, String key, Event event) {
+        Set<Event> posting = index.get(key);
+        if (posting == null) return;
+        posting.remove(event);
+        if (posting.isEmpty()) index.remove(key);
+    }
+
+    private static List<Event> sortById(List<Event> events) {
+        events.sort((e1, e2) -> Integer.compare(e1.getId(), e2.getId()));
+        return events;
+    }
+}
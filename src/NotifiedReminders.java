@@ -0,0 +1,165 @@
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+
+/**
+ * NotifiedReminders remembers which reminders have been shown (or dismissed)
+ * and when: event id -> time the reminder fired.
+ *
+ * The entries are also kept ordered by that time, so forgetting everything
+ * older than a week is a range removal at the old end instead of a scan
+ * over all events.
+ *
+ * Every change is also queued as a log record (see FileManager's
+ * notified-reminder records); takeUnsavedRecords() hands them to the
+ * writer, which appends them to notified_reminders.txt (and hands them
+ * back with restoreUnsavedRecords() if that fails).
+ *
+ * All methods are thread-safe (the reminder, snooze and GUI threads use it).
+ */
+public class NotifiedReminders {
+
+    private final Map<Integer, LocalDateTime> firedAt = new HashMap<>();
+    private final TreeMap<LocalDateTime, Set<Integer>> byTime = new TreeMap<>();
+    private List<String> unsaved = new ArrayList<>();
+
+    /**
+     * Record that the reminder of an event fired
+     * @return false if it was already recorded at that time or later
+     */
+    public synchronized boolean markFired(int id, LocalDateTime at) {
+        at = at.truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime previous = firedAt.get(id);
+        if (previous != null && !previous.isBefore(at)) return false;
+        put(id, at);
+        unsaved.add(FileManager.notifiedFiredRecord(id, at));
+        return true;
+    }
+
+    /**
+     * Check whether the reminder that was due at the given time has fired.
+     * For a recurring series this is per occurrence: a reminder shown for
+     * last week's occurrence doesn't count for this week's.
+     */
+    public synchronized boolean isNotified(int id, LocalDateTime due) {
+        LocalDateTime at = firedAt.get(id);
+        return at != null && !at.isBefore(due);
+    }
+
+    /** Check whether any reminder of the event has fired */
+    public synchronized boolean contains(int id) {
+        return firedAt.containsKey(id);
+    }
+
+    /**
+     * Forget every reminder that fired before the given time
+     * @return ids that were forgotten
+     */
+    public synchronized List<Integer> expireBefore(LocalDateTime threshold) {
+        List<Integer> removed = new ArrayList<>();
+        Iterator<Set<Integer>> old = byTime.headMap(threshold, false).values().iterator();
+        while (old.hasNext()) {
+            for (Integer id : old.next()) {
+                firedAt.remove(id);
+                removed.add(id);
+                unsaved.add(FileManager.notifiedRemovedRecord(id));
+            }
+            old.remove();
+        }
+        return removed;
+    }
+
+    /**
+     * Forget the reminders of events that don't pass the check (e.g. deleted events)
+     * @return ids that were forgotten
+     */
+    public synchronized List<Integer> retainIds(IntPredicate keep) {
+        List<Integer> removed = new ArrayList<>();
+        for (Integer id : new ArrayList<>(firedAt.keySet())) {
+            if (!keep.test(id)) {
+                removeEntry(id);
+                removed.add(id);
+                unsaved.add(FileManager.notifiedRemovedRecord(id));
+            }
+        }
+        return removed;
+    }
+
+    /** Forget everything */
+    public synchronized void clear() {
+        firedAt.clear();
+        byTime.clear();
+        unsaved.clear(); // nothing before the clear matters any more
+        unsaved.add(FileManager.notifiedClearRecord());
+    }
+
+    public synchronized int size() {
+        return firedAt.size();
+    }
+
+    /** id -> fired time, oldest first */
+    public synchronized Map<Integer, LocalDateTime> snapshot() {
+        Map<Integer, LocalDateTime> copy = new LinkedHashMap<>();
+        for (Map.Entry<LocalDateTime, Set<Integer>> entry : byTime.entrySet()) {
+            for (Integer id : entry.getValue()) copy.put(id, entry.getKey());
+        }
+        return copy;
+    }
+
+    /** Log records of the changes since the last call, in order */
+    public synchronized List<String> takeUnsavedRecords() {
+        List<String> records = unsaved;
+        unsaved = new ArrayList<>();
+        return records;
+    }
+
+    /**
+     * Put back records that could not be written, in front of the ones
+     * queued since, so the next write tries them again
+     */
+    public synchronized void restoreUnsavedRecords(List<String> records) {
+        List<String> all = new ArrayList<>(records.size() + unsaved.size());
+        all.addAll(records);
+        all.addAll(unsaved);
+        unsaved = all;
+    }
+
+    // ================== Loading ==================
+    // Used by FileManager while replaying the log: these don't produce records.
+
+    void load(int id, LocalDateTime at) {
+        put(id, at);
+    }
+
+    void loadRemove(int id) {
+        removeEntry(id);
+    }
+
+    void loadClear() {
+        firedAt.clear();
+        byTime.clear();
+    }
+
+    private void put(int id, LocalDateTime at) {
+        removeEntry(id);
+        firedAt.put(id, at);
+        byTime.computeIfAbsent(at, t -> new TreeSet<>()).add(id);
+    }
+
+    private void removeEntry(int id) {
+        LocalDateTime at = firedAt.remove(id);
+        if (at == null) return;
+        Set<Integer> ids = byTime.get(at);
+        ids.remove(id);
+        if (ids.isEmpty()) byTime.remove(at);
+    }
+}
@@ -0,0 +1,311 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * PersistenceQueue is a write-behind stage between SchedulerApp and FileManager.
+ * Changes are queued and the caller returns at once; one background writer
+ * thread empties the queue and writes everything that piled up in one go
+ * (group commit):
+ * - journal records of a burst are appended with one write and one sync
+ * - whole-file saves (additional fields, events) are coalesced: only the
+ *   latest state is written, once per flush (the notified-reminders log uses
+ *   the same coalescing, appending every record queued since its last write)
+ * - other file tasks run in the order they were queued
+ * Every call returns a CompletableFuture that completes when its data is on disk,
+ * or completes exceptionally if a write of its batch failed. Journal records,
+ * tasks and whole-file saves that failed are kept in the queue and written
+ * again with the next batch (or when the queue is stopped). Tasks don't run
+ * in a batch whose journal records failed (e.g. deleting a series' rule must
+ * wait until its "D" record is written); they wait for the next batch too.
+ */
+public class PersistenceQueue {
+
+    /** A file write that may fail */
+    public interface Write {
+        void run() throws IOException;
+    }
+
+    private static final String EVENTS_KEY = "events";
+
+    private final Supplier<List<Event>> currentEvents;
+    private final Object lock = new Object();
+
+    // Everything below is guarded by lock
+    private List<String> journalRecords = new ArrayList<>();
+    private List<Write> beforeJournal = new ArrayList<>(); // must be on disk before the records are appended
+    private List<Write> tasks = new ArrayList<>();
+    private Map<String, Write> saves = new LinkedHashMap<>(); // key -> latest whole-file write
+    private List<CompletableFuture<Void>> waiting = new ArrayList<>();
+    private boolean stopped = false;
+    private boolean writerDone = false; // writer thread has exited; later calls write synchronously
+    private boolean retriedOnStop = false; // failed writes left over at stop were tried once more
+
+    private final Thread writer;
+
+    /**
+     * @param currentEvents gives the current event list (used for full saves and journal compaction)
+     */
+    public PersistenceQueue(Supplier<List<Event>> currentEvents) {
+        this.currentEvents = currentEvents;
+        this.writer = new Thread(this::runWriter, "persistence-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+
+        // Don't lose queued writes when the JVM exits (e.g. System.exit from the GUI)
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "persistence-shutdown"));
+    }
+
+    /** Queue a journal record (see FileManager.journalAddRecord etc.) */
+    public CompletableFuture<Void> journal(String record) {
+        synchronized (lock) {
+            journalRecords.add(record);
+            return enqueued();
+        }
+    }
+
+    /** Queue several journal records that must reach the file together */
+    public CompletableFuture<Void> journal(List<String> records) {
+        synchronized (lock) {
+            journalRecords.addAll(records);
+            return enqueued();
+        }
+    }
+
+    /**
+     * Queue journal records together with a file write that has to be on disk
+     * before them (e.g. the recurrence rules of series added in the batch).
+     * If that write fails, the records are not appended either.
+     */
+    public CompletableFuture<Void> journal(List<String> records, Write before) {
+        synchronized (lock) {
+            beforeJournal.add(before);
+            journalRecords.addAll(records);
+            return enqueued();
+        }
+    }
+
+    /**
+     * Queue a full rewrite of event.csv from the current event list.
+     * Journal records queued before it are already part of that list, so they are dropped.
+     */
+    public CompletableFuture<Void> saveEvents() {
+        synchronized (lock) {
+            journalRecords.clear(); // (writes queued to go before them still run)
+            saves.put(EVENTS_KEY, () -> FileManager.saveEvents(currentEvents.get()));
+            return enqueued();
+        }
+    }
+
+    /**
+     * Queue a whole-file write. If a write with the same key is still waiting,
+     * it is replaced, so a burst of changes costs one write.
+     * @param save reads the current state when it runs
+     */
+    public CompletableFuture<Void> save(String key, Write save) {
+        synchronized (lock) {
+            saves.put(key, save);
+            return enqueued();
+        }
+    }
+
+    /** Queue a file task that must run in order with other tasks (never coalesced) */
+    public CompletableFuture<Void> task(Write task) {
+        synchronized (lock) {
+            tasks.add(task);
+            return enqueued();
+        }
+    }
+
+    /** Completes when everything queued so far has been written */
+    public CompletableFuture<Void> flush() {
+        synchronized (lock) {
+            return enqueued();
+        }
+    }
+
+    /**
+     * Write whatever is still queued and stop the writer thread.
+     * Later calls are written straight away on the caller's thread.
+     */
+    public void stop() {
+        synchronized (lock) {
+            if (stopped) return;
+            stopped = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ================== Writer ==================
+
+    /** Caller holds lock */
+    private CompletableFuture<Void> enqueued() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        waiting.add(done);
+        if (writerDone) {
+            writeBatch(); // writer is gone: write synchronously (still under lock, so in order)
+        } else {
+            lock.notifyAll();
+        }
+        return done;
+    }
+
+    private void runWriter() {
+        while (true) {
+            synchronized (lock) {
+                while (waiting.isEmpty() && !stopped) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        stopped = true; // drain what is left, then exit
+                    }
+                }
+                if (waiting.isEmpty()) { // stopped and drained
+                    if (!retriedOnStop && hasRetries()) {
+                        retriedOnStop = true; // last chance for writes that failed earlier
+                    } else {
+                        writerDone = true;
+                        return;
+                    }
+                }
+            }
+            writeBatch();
+        }
+    }
+
+    /** Caller holds lock */
+    private boolean hasRetries() {
+        return !journalRecords.isEmpty() || !beforeJournal.isEmpty() || !tasks.isEmpty() || !saves.isEmpty();
+    }
+
+    /** Take everything queued so far and write it as one group */
+    private void writeBatch() {
+        List<String> records;
+        List<Write> batchBefore;
+        List<Write> batchTasks;
+        Map<String, Write> batchSaves;
+        List<CompletableFuture<Void>> batchWaiting;
+        synchronized (lock) {
+            records = journalRecords;
+            batchBefore = beforeJournal;
+            batchTasks = tasks;
+            batchSaves = saves;
+            batchWaiting = waiting;
+            journalRecords = new ArrayList<>();
+            beforeJournal = new ArrayList<>();
+            tasks = new ArrayList<>();
+            saves = new LinkedHashMap<>();
+            waiting = new ArrayList<>();
+        }
+
+        Throwable failure = null;
+        // A full save replaces the journal, so it goes before the newer records
+        Write eventsSave = batchSaves.remove(EVENTS_KEY);
+        if (eventsSave != null) {
+            try {
+                eventsSave.run();
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Error saving events: " + e.getMessage());
+                failure = e;
+                requeueSave(EVENTS_KEY, eventsSave);
+            }
+        }
+        for (int i = 0; i < batchBefore.size(); i++) {
+            try {
+                if (failure != null) throw new IOException("not written, an earlier write of the batch failed");
+                batchBefore.get(i).run();
+            } catch (IOException | RuntimeException e) {
+                if (failure == null) {
+                    System.out.println("Error writing file: " + e.getMessage());
+                    failure = e;
+                }
+                requeueBefore(batchBefore.subList(i, batchBefore.size()));
+                break;
+            }
+        }
+        if (!records.isEmpty()) {
+            try {
+                if (failure != null) throw new IOException("not written, an earlier write of the batch failed");
+                FileManager.appendJournal(records, currentEvents);
+            } catch (IOException | RuntimeException e) {
+                if (failure == null) {
+                    System.out.println("Error writing journal: " + e.getMessage());
+                    failure = e;
+                }
+                requeueRecords(records);
+            }
+        }
+        for (int i = 0; i < batchTasks.size(); i++) {
+            try {
+                if (failure != null) throw new IOException("not written, an earlier write of the batch failed");
+                batchTasks.get(i).run();
+            } catch (IOException | RuntimeException e) {
+                if (failure == null) {
+                    System.out.println("Error writing file: " + e.getMessage());
+                    failure = e;
+                }
+                requeueTasks(batchTasks.subList(i, batchTasks.size())); // in order, with the ones after it
+                break;
+            }
+        }
+        for (Map.Entry<String, Write> save : batchSaves.entrySet()) {
+            try {
+                save.getValue().run();
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Error writing file: " + e.getMessage());
+                if (failure == null) failure = e;
+                requeueSave(save.getKey(), save.getValue());
+            }
+        }
+
+        for (CompletableFuture<Void> done : batchWaiting) {
+            if (failure == null) done.complete(null);
+            else done.completeExceptionally(failure);
+        }
+    }
+
+    /** Put journal records that failed back in front of the ones queued since */
+    private void requeueRecords(List<String> records) {
+        synchronized (lock) {
+            // A full save queued meanwhile already contains these changes
+            // (and replaying them after it would undo newer ones)
+            if (saves.containsKey(EVENTS_KEY)) return;
+            records.addAll(journalRecords);
+            journalRecords = records;
+        }
+    }
+
+    /** Put writes that must precede the journal records back in front of the queue */
+    private void requeueBefore(List<Write> writes) {
+        synchronized (lock) {
+            List<Write> all = new ArrayList<>(writes);
+            all.addAll(beforeJournal);
+            beforeJournal = all;
+        }
+    }
+
+    /** Put tasks that failed (or were not run) back in front of the ones queued since */
+    private void requeueTasks(List<Write> failed) {
+        synchronized (lock) {
+            List<Write> all = new ArrayList<>(failed);
+            all.addAll(tasks);
+            tasks = all;
+        }
+    }
+
+    /** Keep a failed whole-file save for the next batch, unless a newer one was queued */
+    private void requeueSave(String key, Write save) {
+        synchronized (lock) {
+            saves.putIfAbsent(key, save);
+        }
+    }
+}
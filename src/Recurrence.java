@@ -1,10 +1,30 @@
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Recurrence class handles recurring events in the calendar.
- * It supports daily, weekly, and monthly repetition.
+ * It supports daily, weekly, monthly and yearly repetition, plus the
+ * RFC 5545 (iCalendar RRULE) parts COUNT, BYDAY, BYMONTHDAY, BYSETPOS and EXDATE.
+ *
+ * Plain rules (only frequency, interval, end date and/or COUNT) are answered
+ * with arithmetic. Rules with BY* parts or EXDATEs are expanded period by
+ * period by a RecurrenceIterator, which can jump straight to any time.
  */
 public class Recurrence {
 
@@ -12,12 +32,68 @@ public class Recurrence {
     public enum Frequency {
         DAILY,      // Event repeats every X days
         WEEKLY,     // Event repeats every X weeks
-        MONTHLY     // Event repeats every X months
+        MONTHLY,    // Event repeats every X months
+        YEARLY      // Event repeats every X years
     }
 
-    private Frequency frequency;        // Type of recurrence (daily, weekly, monthly)
+    /**
+     * One BYDAY entry: a weekday, optionally with the week it falls in
+     * inside the month (MONTHLY) or year (YEARLY): "MO" = every Monday,
+     * "2MO" = the second Monday, "-1FR" = the last Friday
+     */
+    public static final class WeekdayNum {
+        private static final String[] CODES = {"MO", "TU", "WE", "TH", "FR", "SA", "SU"};
+
+        public final int ordinal;       // 0 = every such weekday
+        public final DayOfWeek day;
+
+        public WeekdayNum(int ordinal, DayOfWeek day) {
+            this.ordinal = ordinal;
+            this.day = day;
+        }
+
+        /** Parse "MO", "2MO", "+2MO" or "-1FR" */
+        public static WeekdayNum parse(String text) {
+            String s = text.trim().toUpperCase();
+            if (s.length() < 2) throw new IllegalArgumentException("Invalid BYDAY value: " + text);
+            String code = s.substring(s.length() - 2);
+            String number = s.substring(0, s.length() - 2);
+            int dayIndex = Arrays.asList(CODES).indexOf(code);
+            if (dayIndex < 0) throw new IllegalArgumentException("Invalid weekday: " + text);
+            int ordinal = number.isEmpty() ? 0 : Integer.parseInt(number.startsWith("+") ? number.substring(1) : number);
+            if (ordinal < -53 || ordinal > 53) throw new IllegalArgumentException("Invalid BYDAY value: " + text);
+            return new WeekdayNum(ordinal, DayOfWeek.of(dayIndex + 1));
+        }
+
+        @Override
+        public String toString() {
+            return (ordinal != 0 ? String.valueOf(ordinal) : "") + CODES[day.getValue() - 1];
+        }
+    }
+
+    private static final DateTimeFormatter EXDATE_FORMAT = DateTimeFormatter.BASIC_ISO_DATE; // 20260105
+
+    private Frequency frequency;        // Type of recurrence (daily, weekly, monthly, yearly)
     private int interval;               // Number of units between occurrences (e.g., every 2 days)
-    private LocalDateTime endDate;      // Date when recurrence ends
+    private LocalDateTime endDate;      // Date when recurrence ends (UNTIL), may be null when count is set
+    private int count;                  // COUNT: number of occurrences (0 = no limit besides endDate)
+    private List<WeekdayNum> byDay = Collections.emptyList();
+    private int[] byMonthDay = new int[0];  // days of the month, negative = counted from the month end
+    private int[] bySetPos = new int[0];    // which of the occurrences in each period to keep (1 = first, -1 = last)
+    private final TreeSet<LocalDate> exDates = new TreeSet<>(); // days whose occurrence is skipped
+
+    // Where a COUNT-limited complex series ends, for the start it was last computed for
+    private volatile CountEnd countEnd;
+
+    private static final class CountEnd {
+        final LocalDateTime start;
+        final LocalDateTime until;
+
+        CountEnd(LocalDateTime start, LocalDateTime until) {
+            this.start = start;
+            this.until = until;
+        }
+    }
 
     /**
      * Constructor to create a Recurrence object
@@ -31,6 +107,17 @@ public class Recurrence {
         this.endDate = endDate;
     }
 
+    /** A copy that can be changed without affecting this rule (e.g. to add an EXDATE) */
+    public Recurrence copy() {
+        Recurrence copy = new Recurrence(frequency, interval, endDate);
+        copy.count = count;
+        copy.byDay = byDay;
+        copy.byMonthDay = byMonthDay;
+        copy.bySetPos = bySetPos;
+        copy.exDates.addAll(exDates);
+        return copy;
+    }
+
     // ================== Getters and Setters ==================
 
     public Frequency getFrequency() {
@@ -39,6 +126,7 @@ public class Recurrence {
 
     public void setFrequency(Frequency frequency) {
         this.frequency = frequency;
+        countEnd = null;
     }
 
     public int getInterval() {
@@ -47,6 +135,7 @@ public class Recurrence {
 
     public void setInterval(int interval) {
         this.interval = interval;
+        countEnd = null;
     }
 
     public LocalDateTime getEndDate() {
@@ -55,6 +144,163 @@ public class Recurrence {
 
     public void setEndDate(LocalDateTime endDate) {
         this.endDate = endDate;
+        countEnd = null;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = Math.max(0, count);
+        countEnd = null;
+    }
+
+    public List<WeekdayNum> getByDay() {
+        return byDay;
+    }
+
+    public void setByDay(List<WeekdayNum> byDay) {
+        this.byDay = byDay == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(byDay));
+        countEnd = null;
+    }
+
+    public int[] getByMonthDay() {
+        return byMonthDay.clone();
+    }
+
+    public void setByMonthDay(int... byMonthDay) {
+        for (int day : byMonthDay) {
+            if (day == 0 || day < -31 || day > 31) throw new IllegalArgumentException("Invalid BYMONTHDAY value: " + day);
+        }
+        this.byMonthDay = byMonthDay.clone();
+        countEnd = null;
+    }
+
+    public int[] getBySetPos() {
+        return bySetPos.clone();
+    }
+
+    public void setBySetPos(int... bySetPos) {
+        for (int pos : bySetPos) {
+            if (pos == 0 || pos < -366 || pos > 366) throw new IllegalArgumentException("Invalid BYSETPOS value: " + pos);
+        }
+        this.bySetPos = bySetPos.clone();
+        countEnd = null;
+    }
+
+    public SortedSet<LocalDate> getExDates() {
+        return Collections.unmodifiableSortedSet(exDates);
+    }
+
+    /** Skip the occurrence on the given day (EXDATE). It still counts towards COUNT. */
+    public void addExDate(LocalDate date) {
+        exDates.add(date);
+    }
+
+    public void removeExDate(LocalDate date) {
+        exDates.remove(date);
+    }
+
+    boolean isExcluded(LocalDate date) {
+        return !exDates.isEmpty() && exDates.contains(date);
+    }
+
+    // ================== RRULE parts ==================
+
+    /**
+     * The parts that have no column of their own in recurrent.csv, RFC 5545 style,
+     * e.g. "BYDAY=2MO,-1FR;BYSETPOS=-1;EXDATE=20260105,20260112" ("" if there are none)
+     */
+    public String getRuleParts() {
+        List<String> parts = new ArrayList<>();
+        if (!byDay.isEmpty()) {
+            List<String> days = new ArrayList<>();
+            for (WeekdayNum day : byDay) days.add(day.toString());
+            parts.add("BYDAY=" + String.join(",", days));
+        }
+        if (byMonthDay.length > 0) parts.add("BYMONTHDAY=" + join(byMonthDay));
+        if (bySetPos.length > 0) parts.add("BYSETPOS=" + join(bySetPos));
+        if (!exDates.isEmpty()) {
+            List<String> dates = new ArrayList<>();
+            for (LocalDate date : exDates) dates.add(date.format(EXDATE_FORMAT));
+            parts.add("EXDATE=" + String.join(",", dates));
+        }
+        return String.join(";", parts);
+    }
+
+    /**
+     * Apply RFC 5545 style rule parts, e.g. "FREQ=MONTHLY;BYDAY=MO,TU,WE,TH,FR;BYSETPOS=-1;COUNT=12".
+     * Understands FREQ, INTERVAL, COUNT, UNTIL (yyyyMMdd), BYDAY, BYMONTHDAY,
+     * BYSETPOS and EXDATE; parts that are left out keep their current value.
+     * @throws IllegalArgumentException if a part can't be understood
+     */
+    public void applyRuleParts(String rule) {
+        if (rule == null || rule.trim().isEmpty()) return;
+        if (rule.trim().toUpperCase().startsWith("RRULE:")) rule = rule.trim().substring(6);
+
+        for (String part : rule.split(";")) {
+            if (part.trim().isEmpty()) continue;
+            int eq = part.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Invalid rule part: " + part);
+            String name = part.substring(0, eq).trim().toUpperCase();
+            String value = part.substring(eq + 1).trim();
+            try {
+                switch (name) {
+                    case "FREQ":
+                        setFrequency(Frequency.valueOf(value.toUpperCase()));
+                        break;
+                    case "INTERVAL":
+                        setInterval(Integer.parseInt(value));
+                        break;
+                    case "COUNT":
+                        setCount(Integer.parseInt(value));
+                        break;
+                    case "UNTIL":
+                        setEndDate(LocalDate.parse(value.substring(0, Math.min(8, value.length())), EXDATE_FORMAT).atStartOfDay());
+                        break;
+                    case "BYDAY":
+                        List<WeekdayNum> days = new ArrayList<>();
+                        for (String day : value.split(",")) days.add(WeekdayNum.parse(day));
+                        setByDay(days);
+                        break;
+                    case "BYMONTHDAY":
+                        setByMonthDay(parseInts(value));
+                        break;
+                    case "BYSETPOS":
+                        setBySetPos(parseInts(value));
+                        break;
+                    case "EXDATE":
+                        for (String date : value.split(",")) {
+                            addExDate(LocalDate.parse(date.trim().substring(0, Math.min(8, date.trim().length())), EXDATE_FORMAT));
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unsupported rule part: " + name);
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid value in " + part, e);
+            }
+        }
+    }
+
+    private static String join(int[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (int value : values) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    private static int[] parseInts(String value) {
+        String[] items = value.split(",");
+        int[] result = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            String item = items[i].trim();
+            result[i] = Integer.parseInt(item.startsWith("+") ? item.substring(1) : item);
+        }
+        return result;
     }
 
     // ================== Core Methods ==================
@@ -66,36 +312,273 @@ public class Recurrence {
      * @return List of LocalDateTime for each occurrence
      */
     public List<LocalDateTime> generateOccurrences(LocalDateTime start) {
-        List<LocalDateTime> occurrences = new ArrayList<>();  // List to store all occurrences
-        LocalDateTime current = start;                        // Start from the event's start date
-
-        // Loop until we reach the end date
-        while (current.isBefore(endDate) || current.isEqual(endDate)) {
-            occurrences.add(current);  // Add current date to list
-
-            // Update the current date based on frequency and interval
-            switch (frequency) {
-                case DAILY:
-                    current = current.plusDays(interval);   // Add X days
-                    break;
-                case WEEKLY:
-                    current = current.plusWeeks(interval);  // Add X weeks
-                    break;
-                case MONTHLY:
-                    current = current.plusMonths(interval); // Add X months
-                    break;
-            }
+        if (isRecurring() && !isSimple()) {
+            List<LocalDateTime> occurrences = new ArrayList<>();
+            iterator(start).forEachRemaining(occurrences::add);
+            return occurrences;
         }
 
+        // Every occurrence up to and including the end date (the size is known up front)
+        long count = occurrenceCount(start);
+        List<LocalDateTime> occurrences = new ArrayList<>((int) Math.min(count, Integer.MAX_VALUE));
+        for (long n = 0; n < count; n++) {
+            occurrences.add(isRecurring() ? plusSteps(start, n) : start);
+        }
         return occurrences;
     }
 
+    /**
+     * Iterator over the occurrences in order, starting with the event itself.
+     * Call seek() on it to jump to a later time without going through the
+     * occurrences in between.
+     * @param start Start date of the event (first occurrence)
+     */
+    public RecurrenceIterator iterator(LocalDateTime start) {
+        return new RecurrenceIterator(this, start, effectiveUntil(start), true);
+    }
+
+    /**
+     * Lazily produce the occurrences that start inside the window [from, to).
+     * Nothing is built up front: the stream jumps straight to the first
+     * occurrence in the window and stops at the window end or the recurrence
+     * end date, whichever comes first.
+     * @param start Start date of the event (first occurrence)
+     * @param from Start of the window (inclusive)
+     * @param to End of the window (exclusive)
+     * @return Stream of occurrence start times in chronological order
+     */
+    public Stream<LocalDateTime> occurrencesBetween(LocalDateTime start, LocalDateTime from, LocalDateTime to) {
+        if (!isRecurring()) {
+            // Not recurring: the only "occurrence" is the event itself
+            return (!start.isBefore(from) && start.isBefore(to)) ? Stream.of(start) : Stream.empty();
+        }
+
+        if (!isSimple()) {
+            RecurrenceIterator it = iterator(start).seek(from);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it,
+                    Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL), false)
+                    .takeWhile(t -> t.isBefore(to));
+        }
+
+        long first = firstIndexAtOrAfter(start, from);
+        return LongStream.rangeClosed(first, lastIndex(start))
+                .mapToObj(n -> plusSteps(start, n))
+                .takeWhile(t -> t.isBefore(to));
+    }
+
+    /**
+     * Start of the last occurrence that starts before the given time, or null if
+     * none does. Computed arithmetically: no occurrences are generated, so this
+     * costs the same for a series of 5 or 5000 occurrences.
+     * @param start Start date of the event (first occurrence)
+     * @param time Occurrences must start before this
+     */
+    public LocalDateTime lastOccurrenceBefore(LocalDateTime start, LocalDateTime time) {
+        if (!time.isAfter(start)) return null;
+        if (!isRecurring()) return start;
+        if (!isSimple()) return iterator(start).lastBefore(time);
+
+        long n = Math.min(firstIndexAtOrAfter(start, time) - 1, lastIndex(start)); // last before "time", or the last at all
+        return n >= 0 ? plusSteps(start, n) : null;
+    }
+
+    /**
+     * Check whether any occurrence overlaps the slot [from, to), without expanding the series.
+     * Every occurrence lasts equally long and they start in order, so the one that
+     * ends last among those starting before "to" is simply the last of them:
+     * the slot overlaps the series exactly when it overlaps that occurrence.
+     * @param start Start date of the event (first occurrence)
+     * @param length How long each occurrence lasts
+     * @param from Start of the slot (inclusive)
+     * @param to End of the slot (exclusive)
+     * @return start of an overlapping occurrence, or null if there is none
+     */
+    public LocalDateTime findOverlap(LocalDateTime start, Duration length, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime nearest = lastOccurrenceBefore(start, to);
+        if (nearest == null || !nearest.plus(length).isAfter(from)) return null;
+        return nearest;
+    }
+
+    // The methods below answer questions about a series straight from
+    // frequency/interval/endDate, without generating its occurrences.
+    // The recurrence doesn't know when the series starts, so like
+    // occurrencesBetween they take the start of the event.
+    // Rules with BY* parts or EXDATEs go through the RecurrenceIterator instead.
+
+    /**
+     * Number of occurrences, the event itself included (1 if it doesn't recur)
+     * @param start Start date of the event (first occurrence)
+     */
+    public long occurrenceCount(LocalDateTime start) {
+        if (!isRecurring()) return 1;
+        if (!isSimple()) {
+            RecurrenceIterator it = iterator(start);
+            long n = 0;
+            while (it.hasNext()) {
+                it.next();
+                n++;
+            }
+            return n;
+        }
+        return lastIndex(start) + 1;
+    }
+
+    /**
+     * The n-th occurrence (0 = the event itself), with month-end clamping for MONTHLY
+     * @param start Start date of the event (first occurrence)
+     * @return its start, or null if the series has no n-th occurrence
+     */
+    public LocalDateTime occurrenceAt(LocalDateTime start, int n) {
+        if (n < 0) return null;
+        if (isRecurring() && !isSimple()) {
+            RecurrenceIterator it = iterator(start);
+            for (int i = 0; i < n && it.hasNext(); i++) it.next();
+            return it.hasNext() ? it.next() : null;
+        }
+        if (n >= occurrenceCount(start)) return null;
+        return isRecurring() ? plusSteps(start, n) : start;
+    }
+
+    /**
+     * First occurrence that starts after the given time (e.g. now)
+     * @param start Start date of the event (first occurrence)
+     * @return its start, or null if the series is over by then
+     */
+    public LocalDateTime nextOccurrenceAfter(LocalDateTime start, LocalDateTime time) {
+        if (!isRecurring()) return start.isAfter(time) ? start : null;
+        if (!isSimple()) {
+            RecurrenceIterator it = iterator(start).seek(time);
+            while (it.hasNext()) {
+                LocalDateTime next = it.next();
+                if (next.isAfter(time)) return next;
+            }
+            return null;
+        }
+
+        long n = firstIndexAtOrAfter(start, time);
+        if (plusSteps(start, n).equals(time)) n++;
+        return n <= lastIndex(start) ? plusSteps(start, n) : null;
+    }
+
+    /**
+     * Check whether the series has an occurrence on the given day
+     * @param start Start date of the event (first occurrence)
+     */
+    public boolean isOccurrence(LocalDateTime start, LocalDate date) {
+        if (!isRecurring()) return start.toLocalDate().equals(date);
+        if (!isSimple()) {
+            RecurrenceIterator it = iterator(start).seek(date.atStartOfDay());
+            return it.hasNext() && it.next().toLocalDate().equals(date);
+        }
+
+        // Occurrences are at least a day apart, so only the first one from midnight on can be that day
+        long n = firstIndexAtOrAfter(start, date.atStartOfDay());
+        return n <= lastIndex(start) && plusSteps(start, n).toLocalDate().equals(date);
+    }
+
+    /**
+     * True if the rule has no BY* parts or EXDATEs, so every occurrence is a
+     * whole number of steps from the first one and can be computed directly
+     */
+    private boolean isSimple() {
+        return byDay.isEmpty() && byMonthDay.length == 0 && bySetPos.length == 0 && exDates.isEmpty();
+    }
+
+    /**
+     * Index of the last occurrence on or before the end date and within COUNT
+     * (-1 if even the first is after the end date)
+     */
+    private long lastIndex(LocalDateTime start) {
+        long last = Long.MAX_VALUE;
+        if (endDate != null) {
+            long afterEnd = firstIndexAtOrAfter(start, endDate);
+            last = plusSteps(start, afterEnd).equals(endDate) ? afterEnd : afterEnd - 1;
+        }
+        return count > 0 ? Math.min(last, count - 1L) : last;
+    }
+
+    /**
+     * Latest time an occurrence may start: the end date, or for a COUNT
+     * rule the COUNT-th occurrence if that comes first.
+     * For a rule with BY* parts finding that occurrence means walking the
+     * series once; the result is kept until the rule changes.
+     */
+    LocalDateTime effectiveUntil(LocalDateTime start) {
+        if (count == 0) return endDate;
+        if (isSimple()) {
+            long last = lastIndex(start);
+            return last >= 0 ? plusSteps(start, last) : start.minusNanos(1);
+        }
+
+        CountEnd cached = countEnd;
+        if (cached != null && cached.start.equals(start)) return cached.until;
+
+        // EXDATEs are applied after COUNT (RFC 5545), so count them too
+        RecurrenceIterator it = new RecurrenceIterator(this, start, endDate, false);
+        LocalDateTime until = start.minusNanos(1); // no occurrence at all
+        for (int n = 0; n < count && it.hasNext(); n++) {
+            until = it.next();
+        }
+        countEnd = new CountEnd(start, until);
+        return until;
+    }
+
+    /**
+     * The n-th step from the first occurrence, ignoring the end date.
+     * Always computed from the first occurrence, so a monthly event on the 31st
+     * lands on the last day of shorter months and returns to the 31st afterwards.
+     */
+    private LocalDateTime plusSteps(LocalDateTime start, long n) {
+        switch (frequency) {
+            case DAILY:
+                return start.plusDays(n * interval);    // Add X days
+            case WEEKLY:
+                return start.plusWeeks(n * interval);   // Add X weeks
+            case YEARLY:
+                return start.plusYears(n * interval);   // Add X years (29 February -> 28 February)
+            case MONTHLY:
+            default:
+                return start.plusMonths(n * interval);  // Add X months
+        }
+    }
+
+    /**
+     * Index of the first occurrence that starts at or after the given time
+     */
+    private long firstIndexAtOrAfter(LocalDateTime start, LocalDateTime from) {
+        if (!from.isAfter(start)) return 0;
+
+        // Estimate from the number of whole units between start and from ...
+        long units;
+        switch (frequency) {
+            case DAILY:
+                units = ChronoUnit.DAYS.between(start, from);
+                break;
+            case WEEKLY:
+                units = ChronoUnit.WEEKS.between(start, from);
+                break;
+            case YEARLY:
+                units = ChronoUnit.YEARS.between(start, from);
+                break;
+            case MONTHLY:
+            default:
+                units = ChronoUnit.MONTHS.between(start, from);
+                break;
+        }
+        long n = Math.max(0, units / interval);
+
+        // ... then correct the estimate by at most a step or two
+        while (n > 0 && !plusSteps(start, n - 1).isBefore(from)) n--;
+        while (plusSteps(start, n).isBefore(from)) n++;
+        return n;
+    }
+
     /**
      * Check if this recurrence object represents a valid recurring event
      * @return true if the event is recurring, false otherwise
      */
     public boolean isRecurring() {
-        // An event is recurring if frequency is set, interval > 0, and endDate is defined
-        return frequency != null && interval > 0 && endDate != null;
+        // An event is recurring if frequency is set, interval > 0, and it ends (endDate or COUNT)
+        return frequency != null && interval > 0 && (endDate != null || count > 0);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,326 @@
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * RecurrenceIterator walks the occurrences of a recurrence rule in order.
+ *
+ * The series is cut into periods of the rule's frequency (a day, a week
+ * starting on Monday, a month or a year), of which every interval-th one is
+ * used. Each period is expanded on its own by the BY* parts:
+ *   - BYDAY      DAILY: only those weekdays; WEEKLY: those days of the week;
+ *                MONTHLY/YEARLY: those weekdays of the month/year, "2MO" = the second Monday
+ *   - BYMONTHDAY those days of the month (-1 = last day); with BYDAY both must match
+ *   - BYSETPOS   keep only the n-th of the days found in the period (-1 = last)
+ * Without BYDAY/BYMONTHDAY a period has one occurrence, the same step the
+ * plain arithmetic in Recurrence uses (with month-end clamping).
+ * Every occurrence keeps the time of day of the first one.
+ *
+ * Nothing is expanded ahead: one period is kept in a small reused buffer,
+ * and seek() jumps to the period containing a time directly, so looking at
+ * next month of a 20-year series doesn't go through the first 19 years.
+ */
+public class RecurrenceIterator implements Iterator<LocalDateTime> {
+
+    // A rule that finds nothing in this many periods in a row is taken to be over
+    // (e.g. FREQ=MONTHLY;INTERVAL=12;BYMONTHDAY=30 starting in February never finds a day)
+    private static final int MAX_EMPTY_PERIODS = 10_000;
+
+    private final Recurrence rule;
+    private final LocalDateTime start;
+    private final LocalDateTime until;      // last time an occurrence may start
+    private final boolean skipExcluded;     // leave out EXDATEs
+
+    private final Recurrence.Frequency frequency;
+    private final int interval;
+    private final List<Recurrence.WeekdayNum> byDay;
+    private final int[] byMonthDay;
+    private final int[] bySetPos;
+    private final LocalTime time;
+    private final LocalDate firstDate;
+    private final LocalDate firstMonday;
+    private final YearMonth firstMonth;
+
+    private long period;                    // next period to expand
+    private LocalDate[] days = new LocalDate[8];
+    private int size;                       // days found in the current period
+    private int pos;                        // next of them to look at
+    private LocalDateTime lowerBound;       // nothing before this is returned
+    private LocalDateTime next;             // found by hasNext(), not returned yet
+    private boolean done;
+
+    /**
+     * @param until last time an occurrence may start (null = no limit)
+     * @param skipExcluded false to include the EXDATEs (needed to apply COUNT)
+     */
+    RecurrenceIterator(Recurrence rule, LocalDateTime start, LocalDateTime until, boolean skipExcluded) {
+        this.rule = rule;
+        this.start = start;
+        this.until = until;
+        this.skipExcluded = skipExcluded;
+        this.frequency = rule.getFrequency();
+        this.interval = rule.getInterval();
+        this.byDay = rule.getByDay();
+        this.byMonthDay = rule.getByMonthDay();
+        this.bySetPos = rule.getBySetPos();
+        this.time = start.toLocalTime();
+        this.firstDate = start.toLocalDate();
+        this.firstMonday = firstDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        this.firstMonth = YearMonth.from(firstDate);
+        this.lowerBound = start;
+        this.done = frequency == null || interval <= 0;
+    }
+
+    /**
+     * Continue from the first occurrence at or after the given time,
+     * going straight to the period that contains it
+     * @return this iterator
+     */
+    public RecurrenceIterator seek(LocalDateTime from) {
+        lowerBound = from.isAfter(start) ? from : start;
+        size = 0;
+        pos = 0;
+        next = null;
+        done = frequency == null || interval <= 0;
+        if (!done) period = periodOf(lowerBound.toLocalDate());
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) return true;
+        if (done) return false;
+
+        int emptyPeriods = 0;
+        while (true) {
+            while (pos < size) {
+                LocalDateTime t = days[pos++].atTime(time);
+                if (t.isBefore(lowerBound)) continue;
+                if (until != null && t.isAfter(until)) {
+                    done = true;
+                    return false;
+                }
+                if (skipExcluded && rule.isExcluded(t.toLocalDate())) continue;
+                next = t;
+                return true;
+            }
+            if (until != null && periodStart(period).isAfter(until.toLocalDate())) {
+                done = true;
+                return false;
+            }
+            expand(period++);
+            emptyPeriods = size == 0 ? emptyPeriods + 1 : 0;
+            if (emptyPeriods >= MAX_EMPTY_PERIODS) {
+                done = true;
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public LocalDateTime next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        LocalDateTime result = next;
+        next = null;
+        return result;
+    }
+
+    /**
+     * Last occurrence that starts before the given time, found by walking
+     * the periods backwards from the one containing it
+     * @return its start, or null if there is none
+     */
+    LocalDateTime lastBefore(LocalDateTime limit) {
+        if (done || !limit.isAfter(start)) return null;
+        LocalDate lastDay = until != null && until.isBefore(limit) ? until.toLocalDate() : limit.toLocalDate();
+
+        int emptyPeriods = 0;
+        for (long k = periodOf(lastDay); k >= 0 && emptyPeriods < MAX_EMPTY_PERIODS; k--) {
+            expand(k);
+            emptyPeriods = size == 0 ? emptyPeriods + 1 : 0;
+            for (int i = size - 1; i >= 0; i--) {
+                LocalDateTime t = days[i].atTime(time);
+                if (!t.isBefore(limit) || (until != null && t.isAfter(until))) continue;
+                if (t.isBefore(start)) return null;
+                if (skipExcluded && rule.isExcluded(days[i])) continue;
+                return t;
+            }
+        }
+        return null;
+    }
+
+    // ================== Periods ==================
+
+    /** Index of the used period that contains (or comes just before) the given day */
+    private long periodOf(LocalDate date) {
+        long units;
+        switch (frequency) {
+            case DAILY:
+                units = ChronoUnit.DAYS.between(firstDate, date);
+                break;
+            case WEEKLY:
+                units = ChronoUnit.WEEKS.between(firstMonday, date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+                break;
+            case YEARLY:
+                units = date.getYear() - firstDate.getYear();
+                break;
+            case MONTHLY:
+            default:
+                units = ChronoUnit.MONTHS.between(firstMonth, YearMonth.from(date));
+                break;
+        }
+        return Math.max(0, Math.floorDiv(units, (long) interval));
+    }
+
+    /** First day of the k-th used period */
+    private LocalDate periodStart(long k) {
+        long step = k * interval;
+        switch (frequency) {
+            case DAILY:
+                return firstDate.plusDays(step);
+            case WEEKLY:
+                return firstMonday.plusWeeks(step);
+            case YEARLY:
+                return LocalDate.of((int) (firstDate.getYear() + step), 1, 1);
+            case MONTHLY:
+            default:
+                return firstMonth.plusMonths(step).atDay(1);
+        }
+    }
+
+    /** Fill the buffer with the days of the k-th used period, sorted, BYSETPOS applied */
+    private void expand(long k) {
+        size = 0;
+        pos = 0;
+        long step = k * interval;
+        boolean plain = byDay.isEmpty() && byMonthDay.length == 0;
+
+        switch (frequency) {
+            case DAILY: {
+                LocalDate day = firstDate.plusDays(step);
+                if (matchesWeekday(day) && matchesMonthDay(day)) add(day);
+                break;
+            }
+            case WEEKLY: {
+                if (byDay.isEmpty()) {
+                    LocalDate day = firstDate.plusWeeks(step);
+                    if (matchesMonthDay(day)) add(day);
+                } else {
+                    LocalDate monday = firstMonday.plusWeeks(step);
+                    for (Recurrence.WeekdayNum weekday : byDay) {
+                        LocalDate day = monday.plusDays(weekday.day.getValue() - 1);
+                        if (matchesMonthDay(day)) add(day);
+                    }
+                }
+                break;
+            }
+            case MONTHLY: {
+                if (plain) {
+                    add(firstDate.plusMonths(step));
+                } else {
+                    YearMonth month = firstMonth.plusMonths(step);
+                    if (byMonthDay.length > 0) addMonthDays(month);
+                    else addWeekdays(month.atDay(1), month.atEndOfMonth());
+                }
+                break;
+            }
+            case YEARLY:
+            default: {
+                if (plain) {
+                    add(firstDate.plusYears(step));
+                } else {
+                    int year = (int) (firstDate.getYear() + step);
+                    if (byMonthDay.length > 0) {
+                        for (int month = 1; month <= 12; month++) addMonthDays(YearMonth.of(year, month));
+                    } else {
+                        addWeekdays(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+                    }
+                }
+                break;
+            }
+        }
+
+        if (size > 1) {
+            Arrays.sort(days, 0, size);
+            int unique = 1;
+            for (int i = 1; i < size; i++) {
+                if (!days[i].equals(days[unique - 1])) days[unique++] = days[i];
+            }
+            size = unique;
+        }
+        if (bySetPos.length > 0) applySetPos();
+    }
+
+    /** BYMONTHDAY days of a month (that exist in it), filtered by BYDAY weekdays */
+    private void addMonthDays(YearMonth month) {
+        int length = month.lengthOfMonth();
+        for (int monthDay : byMonthDay) {
+            int dayOfMonth = monthDay > 0 ? monthDay : length + 1 + monthDay;
+            if (dayOfMonth < 1 || dayOfMonth > length) continue;
+            LocalDate day = month.atDay(dayOfMonth);
+            if (matchesWeekday(day)) add(day);
+        }
+    }
+
+    /** BYDAY days between first and last (a month or a year), "2MO" counted from first, "-1FR" from last */
+    private void addWeekdays(LocalDate first, LocalDate last) {
+        for (Recurrence.WeekdayNum weekday : byDay) {
+            if (weekday.ordinal == 0) {
+                for (LocalDate day = first.with(TemporalAdjusters.nextOrSame(weekday.day)); !day.isAfter(last); day = day.plusWeeks(1)) {
+                    add(day);
+                }
+            } else if (weekday.ordinal > 0) {
+                LocalDate day = first.with(TemporalAdjusters.nextOrSame(weekday.day)).plusWeeks(weekday.ordinal - 1);
+                if (!day.isAfter(last)) add(day);
+            } else {
+                LocalDate day = last.with(TemporalAdjusters.previousOrSame(weekday.day)).minusWeeks(-weekday.ordinal - 1);
+                if (!day.isBefore(first)) add(day);
+            }
+        }
+    }
+
+    /** Keep only the BYSETPOS-th days of the period, in order */
+    private void applySetPos() {
+        int n = size;
+        boolean[] keep = new boolean[n];
+        for (int setPos : bySetPos) {
+            int index = setPos > 0 ? setPos - 1 : n + setPos;
+            if (index >= 0 && index < n) keep[index] = true;
+        }
+        size = 0;
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) days[size++] = days[i];
+        }
+    }
+
+    private boolean matchesWeekday(LocalDate day) {
+        if (byDay.isEmpty()) return true;
+        for (Recurrence.WeekdayNum weekday : byDay) {
+            if (weekday.day == day.getDayOfWeek()) return true;
+        }
+        return false;
+    }
+
+    private boolean matchesMonthDay(LocalDate day) {
+        if (byMonthDay.length == 0) return true;
+        int length = day.lengthOfMonth();
+        for (int monthDay : byMonthDay) {
+            int dayOfMonth = monthDay > 0 ? monthDay : length + 1 + monthDay;
+            if (day.getDayOfMonth() == dayOfMonth) return true;
+        }
+        return false;
+    }
+
+    private void add(LocalDate day) {
+        if (size == days.length) days = Arrays.copyOf(days, size * 2);
+        days[size++] = day;
+    }
+}
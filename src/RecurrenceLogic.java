@@ -2,6 +2,7 @@ import java.time.LocalDateTime;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * RecurrenceLogic handles recurring events for Event objects.
@@ -37,28 +38,13 @@ public class RecurrenceLogic {
                 return recurringEvents;
             }
 
+            // Calculate the duration of the original event
+            long durationMinutes = Duration.between(start, end).toMinutes();
+
             // Loop through all generated dates to create new Event objects
             for (LocalDateTime occurrenceStart : occurrences) {
-                // Calculate the duration of the original event
-                long durationMinutes = Duration.between(start, end).toMinutes();
-                LocalDateTime occurrenceEnd = occurrenceStart.plusMinutes(durationMinutes);
-
-                // Create a new Event for this occurrence
                 // Use id=0 so the caller / persistence layer can assign a new id if needed
-                Event recurringEvent = new Event(
-                        0,                             // New ID (0 means generate new)
-                        event.getTitle(),              // Same title
-                        event.getDescription(),        // Same description
-                        occurrenceStart,               // Start date/time
-                        occurrenceEnd                  // End date/time
-                );
-
-                // Do NOT copy the recurrence object to the generated instance by default.
-                // This prevents accidental re-expansion of occurrences later.
-                // If you do want them to carry recurrence metadata, uncomment the line below.
-                // recurringEvent.setRecurrence(recurrence);
-
-                recurringEvents.add(recurringEvent);
+                recurringEvents.add(createOccurrence(event, 0, occurrenceStart, durationMinutes));
             }
         } else {
             // If no recurrence, just return the original event in the list
@@ -67,4 +53,90 @@ public class RecurrenceLogic {
 
         return recurringEvents;
     }
+
+    /**
+     * Lazily produce the occurrences of a recurring event that start inside
+     * [from, to). The series itself stays a single stored Event; only the
+     * occurrences inside the window are created, so a month or week view
+     * never expands the whole series.
+     * @param event The series Event (an event without recurrence yields itself if it is in the window)
+     * @param from Start of the window (inclusive)
+     * @param to End of the window (exclusive)
+     * @return Stream of occurrence Events carrying the series ID
+     */
+    public static Stream<Event> occurrencesBetween(Event event, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = event.getStart();
+        LocalDateTime end = event.getEnd();
+        if (start == null || end == null) return Stream.empty();
+
+        Recurrence recurrence = event.getRecurrence();
+        if (recurrence == null || !recurrence.isRecurring()) {
+            return (!start.isBefore(from) && start.isBefore(to)) ? Stream.of(event) : Stream.empty();
+        }
+
+        long durationMinutes = Duration.between(start, end).toMinutes();
+        return recurrence.occurrencesBetween(start, from, to)
+                .map(occurrenceStart -> createOccurrence(event, event.getId(), occurrenceStart, durationMinutes));
+    }
+
+    /**
+     * Find an occurrence of a series that overlaps [from, to) in constant time
+     * (see Recurrence.findOverlap), instead of going through its occurrences
+     * @param event The series Event (an event without recurrence is checked as it is)
+     * @return an overlapping occurrence carrying the series ID, or null if there is none
+     */
+    public static Event findOverlappingOccurrence(Event event, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = event.getStart();
+        LocalDateTime end = event.getEnd();
+        if (start == null || end == null) return null;
+
+        Recurrence recurrence = event.getRecurrence();
+        if (recurrence == null || !recurrence.isRecurring()) {
+            return (start.isBefore(to) && end.isAfter(from)) ? event : null;
+        }
+
+        long durationMinutes = Duration.between(start, end).toMinutes();
+        LocalDateTime occurrenceStart = recurrence.findOverlap(start, Duration.ofMinutes(durationMinutes), from, to);
+        return occurrenceStart == null ? null : createOccurrence(event, event.getId(), occurrenceStart, durationMinutes);
+    }
+
+    /**
+     * The first occurrence of a series that starts after the given time (e.g. now),
+     * found without going through the earlier ones
+     * @param event The series Event (an event without recurrence is its own only occurrence)
+     * @return the occurrence carrying the series ID, or null if there is none
+     */
+    public static Event nextOccurrenceAfter(Event event, LocalDateTime time) {
+        LocalDateTime start = event.getStart();
+        LocalDateTime end = event.getEnd();
+        if (start == null || end == null) return null;
+
+        Recurrence recurrence = event.getRecurrence();
+        if (recurrence == null || !recurrence.isRecurring()) {
+            return start.isAfter(time) ? event : null;
+        }
+
+        LocalDateTime next = recurrence.nextOccurrenceAfter(start, time);
+        return next == null ? null : createOccurrence(event, event.getId(), next, Duration.between(start, end).toMinutes());
+    }
+
+    /**
+     * Create a new Event for one occurrence of a series
+     */
+    private static Event createOccurrence(Event event, int id, LocalDateTime occurrenceStart, long durationMinutes) {
+        Event recurringEvent = new Event(
+                id,                                          // ID to use for this occurrence
+                event.getTitle(),                            // Same title
+                event.getDescription(),                      // Same description
+                occurrenceStart,                             // Start date/time
+                occurrenceStart.plusMinutes(durationMinutes) // End date/time
+        );
+
+        // Do NOT copy the recurrence object to the generated instance by default.
+        // This prevents accidental re-expansion of occurrences later.
+        // If you do want them to carry recurrence metadata, uncomment the line below.
+        // recurringEvent.setRecurrence(event.getRecurrence());
+
+        return recurringEvent;
+    }
 }
\ No newline at end of file
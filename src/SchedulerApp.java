@@ -8,40 +8,46 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.*;
 
 public class SchedulerApp {
 
-    //--> using the arraylist so that program can be 
-    //detected easily 
+    // All events and the indexes over them (id, title, time, date, keywords).
+    // The store is thread-safe: the reminder/backup/snooze threads read snapshots of it.
+    private final EventStore store = new EventStore();
+    // Additional fields by event id, indexed by category, priority and location
+    private final AdditionalFieldsIndex additionalFields = new AdditionalFieldsIndex();
 
-    private ArrayList<Event> events = new ArrayList<>();
-    private java.util.Map<Integer, AdditionalFields> additionalFieldsMap = new java.util.HashMap<>();
+    // Changes are written to disk in the background; bursts are written together
+    private final PersistenceQueue persistence = new PersistenceQueue(store::snapshot);
+
+    // Changes are made one at a time so the journal records them in the same order as the store
+    private final Object writeLock = new Object();
 
      public SchedulerApp() {
     // This pulls the data from the CSV file into your list when the app starts
-    this.events = new ArrayList<>(FileManager.loadEvents());
-    this.additionalFieldsMap = FileManager.loadAdditionalFields();
+    store.replaceAll(attachRecurrences(new ArrayList<>(FileManager.loadEvents())));
+    store.markIdsUsed(FileManager.highestEventId()); // ids of deleted events are not reused
+    rebuildReminderQueue();
+    additionalFields.replaceAll(FileManager.loadAdditionalFields());
 
     // Load persisted notified reminders and prune IDs not belonging to current events
-    java.util.Set<Integer> loaded = FileManager.loadNotifiedReminders();
-    if (loaded != null) {
-        notifiedReminders.addAll(loaded);
-        java.util.Set<Integer> currentIds = new java.util.HashSet<>();
-        for (Event ev : this.events) currentIds.add(ev.getId());
-        notifiedReminders.retainAll(currentIds);
+    notifiedReminders = FileManager.loadNotifiedReminders();
+    if (!notifiedReminders.retainIds(id -> store.findById(id) != null).isEmpty()) {
+        saveNotifiedReminders();
     }
 
-    // Expire old notified reminders (older than 7 days based on event end)
+    // Expire old notified reminders (fired more than 7 days ago)
     expireNotifiedReminders(7);
 
     // Detect missed reminders (reminder time in past but event start within last 1 day)
     java.util.List<Event> missed = new java.util.ArrayList<>();
     LocalDateTime now = LocalDateTime.now();
-    for (Event ev : this.events) {
+    for (Event ev : store.snapshot()) {
         if (ev.getReminderMinutes() <= 0) continue;
-        if (notifiedReminders.contains(ev.getId())) continue;
         LocalDateTime reminderTime = ev.getStart().minusMinutes(ev.getReminderMinutes());
+        if (notifiedReminders.isNotified(ev.getId(), reminderTime)) continue;
         if (reminderTime.isBefore(now) && ev.getStart().isAfter(now.minusDays(1))) {
             missed.add(ev);
         }
@@ -67,10 +73,11 @@ public class SchedulerApp {
                     }
                 }).start();
             } else if (choice == 1) {
+                LocalDateTime readAt = LocalDateTime.now();
                 for (Event me : missed) {
-                    notifiedReminders.add(me.getId());
+                    notifiedReminders.markFired(me.getId(), readAt);
                 }
-                FileManager.saveNotifiedReminders(notifiedReminders);
+                saveNotifiedReminders();
             } else {
                 // ignore
             }
@@ -78,98 +85,277 @@ public class SchedulerApp {
     }
 }
     //--> addEvent method
-   public void addEvent(Event adding){
-    events.add(adding);
-    FileManager.saveEvents(this.events); // Save change to file!
+    /**
+     * Add an event (a recurring event is stored once, with its rule in recurrent.csv)
+     * @return completes when the change is on disk
+     */
+   public CompletableFuture<Void> addEvent(Event adding){
+    synchronized (writeLock) {
+        store.add(adding);
+        scheduleReminder(adding);
+        String record = FileManager.journalAddRecord(adding);
+        if (EventStore.isSeries(adding)) {
+            // the rule is written before the record, so a series never loads without it
+            Recurrence rule = adding.getRecurrence();
+            return persistence.journal(java.util.Collections.singletonList(record),
+                    () -> FileManager.saveRecurrence(adding.getId(), rule));
+        }
+        return persistence.journal(record); // Save change to file!
+    }
 }
     public Event findTitle(String title){
         
-        for(Event adding : events ){
-            if(adding.getTitle().equalsIgnoreCase(title))
-                return adding;
-        }
-        return null; //---error 
+        return store.findFirstByTitle(title); // null if not found
+
+    }
+
+    /**
+     * Find all events with the given title (case-insensitive)
+     * @return matching events in the order they were added (empty if none)
+     */
+    public List<Event> findAllByTitle(String title) {
+        return store.findAllByTitle(title);
+    }
 
+    /**
+     * Find an event by its id
+     * @return the event or null if there is none
+     */
+    public Event findById(int id) {
+        return store.findById(id);
     }
-public void updateEvent(String oldTitle, Event update) {
+
+    /**
+     * Next free event id (one more than the highest id ever used)
+     */
+    public int nextEventId() {
+        return store.nextId();
+    }
+/**
+ * Update the first event with the given title
+ * @return completes when the change is on disk (at once if nothing was found)
+ */
+public CompletableFuture<Void> updateEvent(String oldTitle, Event update) {
+  synchronized (writeLock) {
     Event existing = findTitle(oldTitle);
     if (existing != null) {
-        // Update the fields in the object
-        existing.setTitle(update.getTitle());
-        existing.setStart(update.getStart()); // Use the LocalDateTime setter
-        existing.setDescription(update.getDescription());
-        existing.setEnd(update.getEnd());
+        // Update the fields (the store swaps in an updated copy and re-indexes it)
+        cancelReminder(existing);
+        Event updated = store.update(existing, ev -> {
+            ev.setTitle(update.getTitle());
+            ev.setStart(update.getStart()); // Use the LocalDateTime setter
+            ev.setDescription(update.getDescription());
+            ev.setEnd(update.getEnd());
+        });
+        scheduleReminder(updated);
 
         // Step B: IMPORTANT - Sync changes to your CSV file
-        // After updating the list, you must tell the file manager to rewrite the file
-        FileManager.saveEvents(this.events); 
+        // After updating the list, append the change to the event journal
+        return persistence.journal(FileManager.journalUpdateRecord(updated));
     } else {
         System.out.println("Event not found: " + oldTitle);
+        return CompletableFuture.completedFuture(null);
     }
+  }
 }
 
-    public void deleteEvent(String title){
+    public CompletableFuture<Void> deleteEvent(String title){
         Event existing = findTitle(title);
         if(existing != null){
-            events.remove(existing);
-            FileManager.saveEvents(this.events); // Save change to file!
+            CompletableFuture<Void> saved = removeEvent(existing);
             System.out.println("Deleted event: " + title + " (ID: " + existing.getId() + ")");
+            return saved;
         } else {
             System.out.println("Event not found: " + title);
+            return CompletableFuture.completedFuture(null);
         }
     }
     
+    /**
+     * Delete one specific event (e.g. a single occurrence picked from a list)
+     * @param event the event to remove
+     * @return completes when the change is on disk
+     */
+    public CompletableFuture<Void> removeEvent(Event event) {
+        synchronized (writeLock) {
+            if (store.remove(event)) {
+                return persistence.journal(forgetEvent(event)); // Save change to file!
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Delete one occurrence of a recurring series: the day is added to the
+     * series' exception dates (EXDATE), the rest of the series stays
+     * @param series the series event (as returned by findAllByTitle)
+     * @param date day of the occurrence to skip
+     * @return completes when the change is on disk (at once if the series is gone
+     *         or has no occurrence on that day)
+     */
+    public CompletableFuture<Void> deleteOccurrence(Event series, java.time.LocalDate date) {
+        synchronized (writeLock) {
+            if (!EventStore.isSeries(series) || !series.getRecurrence().isOccurrence(series.getStart(), date)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            // The rule is copied: snapshots handed out earlier keep expanding the old one
+            Recurrence rule = series.getRecurrence().copy();
+            rule.addExDate(date);
+            Event updated = store.update(series, ev -> ev.setRecurrence(rule));
+            if (updated == null) return CompletableFuture.completedFuture(null);
+
+            cancelReminder(series);
+            scheduleReminder(updated);
+            System.out.println("Deleted occurrence of " + series.getTitle() + " on " + date);
+            return persistence.task(() -> FileManager.saveRecurrence(updated.getId(), rule));
+        }
+    }
+
     /**
      * Delete all events with the given title
      * @param title Title of events to delete
      * @return Number of events deleted
      */
     public int deleteAllEventsByTitle(String title){
-        int count = 0;
-        java.util.Iterator<Event> iterator = events.iterator();
-        while (iterator.hasNext()) {
-            Event event = iterator.next();
-            if (event.getTitle().equalsIgnoreCase(title)) {
-                iterator.remove();
-                count++;
-            }
+        int count;
+        synchronized (writeLock) {
+            List<Event> removed = store.removeAll(findAllByTitle(title)); // one pass over the list
+            count = removed.size();
+            persistRemoved(removed);
         }
         if (count > 0) {
-            FileManager.saveEvents(this.events);
             System.out.println("Deleted " + count + " event(s) with title: " + title);
         }
         return count;
     }
 
-public ArrayList<Event> getEvents(){
-    return events;
+    // -------- Batch changes --------
+    // Each batch takes the store's write lock once, updates the indexes once and
+    // reaches the journal as one "B,n" batch, which is replayed all or nothing.
+
+    /**
+     * Add several events at once. They are given a block of new consecutive ids
+     * (set on the events themselves), in the order of the collection.
+     * @return completes with the number of events added once they are on disk
+     */
+    public CompletableFuture<Integer> addEvents(java.util.Collection<Event> adding) {
+        if (adding.isEmpty()) return CompletableFuture.completedFuture(0);
+        synchronized (writeLock) {
+            int id = store.reserveIds(adding.size());
+            for (Event e : adding) e.setId(id++);
+            store.addAll(adding);
+
+            List<String> records = new ArrayList<>(adding.size());
+            java.util.Map<Integer, Recurrence> rules = new java.util.LinkedHashMap<>();
+            for (Event e : adding) {
+                scheduleReminder(e);
+                if (EventStore.isSeries(e)) rules.put(e.getId(), e.getRecurrence());
+                records.add(FileManager.journalAddRecord(e));
+            }
+            int count = adding.size();
+            List<String> batch = FileManager.journalBatch(records);
+            if (rules.isEmpty()) return persistence.journal(batch).thenApply(v -> count);
+            // all rules of the batch in one rewrite of recurrent.csv, done before the batch is appended
+            return persistence.journal(batch, () -> FileManager.saveRecurrences(rules)).thenApply(v -> count);
+        }
+    }
+
+    /**
+     * Delete every event matching the filter
+     * (the filter must not call back into SchedulerApp)
+     * @return completes with the number of events deleted once that is on disk
+     */
+    public CompletableFuture<Integer> deleteEvents(java.util.function.Predicate<Event> filter) {
+        synchronized (writeLock) {
+            List<Event> removed = store.removeIf(filter);
+            int count = removed.size();
+            return persistRemoved(removed).thenApply(v -> count);
+        }
+    }
+
+    /**
+     * Change every event matching the filter
+     * (filter and change must not call back into SchedulerApp)
+     * @param change applied to a copy of each matching event
+     * @return completes with the number of events updated once that is on disk
+     */
+    public CompletableFuture<Integer> updateEvents(java.util.function.Predicate<Event> filter,
+                                                   java.util.function.Consumer<Event> change) {
+        synchronized (writeLock) {
+            java.util.Map<Event, Event> updated = store.updateAll(filter, change);
+            if (updated.isEmpty()) return CompletableFuture.completedFuture(0);
+
+            List<String> records = new ArrayList<>(updated.size());
+            for (java.util.Map.Entry<Event, Event> ent : updated.entrySet()) {
+                cancelReminder(ent.getKey());
+                scheduleReminder(ent.getValue());
+                records.add(FileManager.journalUpdateRecord(ent.getValue()));
+            }
+            int count = updated.size();
+            return persistence.journal(FileManager.journalBatch(records)).thenApply(v -> count);
+        }
+    }
+
+/**
+ * Get all events as a read-only snapshot. It can be iterated from any thread
+ * and does not change if events are added or deleted afterwards.
+ */
+public List<Event> getEvents(){
+    return store.snapshot();
 
 }
 
+/**
+ * Fire every reminder that is due now, then sleep until the next one.
+ * Only the head of the reminder queue is looked at, so the cost does not
+ * depend on how many events exist.
+ */
 public void checkReminders() {
     LocalDateTime now = LocalDateTime.now();
+    java.util.List<ReminderEntry> due = new java.util.ArrayList<>();
+
+    synchronized (reminderQueue) {
+        ReminderEntry head;
+        while ((head = reminderQueue.peek()) != null) {
+            if (pendingReminders.get(head.event.getId()) != head) {
+                reminderQueue.poll(); // stale: event was changed or deleted
+                continue;
+            }
+            if (head.due.isAfter(now)) break;
+            reminderQueue.poll();
+            pendingReminders.remove(head.event.getId());
+            due.add(head);
+        }
+    }
 
-    for (Event e : events) {
+    boolean fired = false;
+    for (ReminderEntry entry : due) {
+        Event e = entry.event;
         if (e.getStart() == null) continue;
+        // A series goes on: queue the reminder of its occurrence after this one
+        if (EventStore.isSeries(entry.source)) scheduleReminder(entry.source, e.getStart());
+
         long mins = Duration.between(now, e.getStart()).toMinutes();
         
-        // Check if event is within the reminder window
-        if (e.getReminderMinutes() > 0 && mins >= 0 && mins <= e.getReminderMinutes()) {
-            // Already notified? skip
-            if (notifiedReminders.contains(e.getId())) continue;
-            notifiedReminders.add(e.getId());
-            FileManager.saveNotifiedReminders(notifiedReminders);
-
-            String message = String.format("Reminder: \"%s\" starts in %d minute(s) at %s",
-                e.getTitle(), mins, e.getStart().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
-
-            // Log and show popup on EDT
-            System.out.println(message);
-            javax.swing.SwingUtilities.invokeLater(() -> {
-                JOptionPane.showMessageDialog(null, message, "Event Reminder", JOptionPane.INFORMATION_MESSAGE);
-            });
-        }
+        // Event already started (e.g. computer was asleep): leave it to missed-reminder detection
+        if (mins < 0) continue;
+        // Already notified? skip
+        if (notifiedReminders.isNotified(e.getId(), entry.due)) continue;
+        notifiedReminders.markFired(e.getId(), now);
+        fired = true;
+
+        String message = String.format("Reminder: \"%s\" starts in %d minute(s) at %s",
+            e.getTitle(), mins, e.getStart().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
+
+        // Log and show popup on EDT
+        System.out.println(message);
+        javax.swing.SwingUtilities.invokeLater(() -> {
+            JOptionPane.showMessageDialog(null, message, "Event Reminder", JOptionPane.INFORMATION_MESSAGE);
+        });
     }
+    if (fired) saveNotifiedReminders(); // one append for all reminders fired now
+
+    armReminderTimer();
 }
 
 /**
@@ -179,25 +365,22 @@ public void checkReminders() {
  */
 public java.util.List<Event> getUpcomingEvents(int withinMinutes) {
     LocalDateTime now = LocalDateTime.now();
-    java.util.List<Event> upcoming = new java.util.ArrayList<>();
-    
-    for (Event e : events) {
-        if (e.getStart() == null) continue;
-        long mins = Duration.between(now, e.getStart()).toMinutes();
-        
-        // Event is in the future and within the time window
-        if (mins >= 0 && mins <= withinMinutes) {
-            upcoming.add(e);
-        }
-    }
-    
-    // Sort by start time
-    upcoming.sort((e1, e2) -> e1.getStart().compareTo(e2.getStart()));
-    return upcoming;
+    // Start-time index: only the events inside the window are looked at, already sorted.
+    // "Within N minutes" counts whole minutes, so the window ends just before minute N + 1
+    return store.startingBetween(now, now.plusMinutes(withinMinutes + 1L));
+}
+
+/**
+ * Get the next events (recurring occurrences included), sorted by time
+ * @param count How many events to return at most
+ * @return List of the next events
+ */
+public java.util.List<Event> getNextEvents(int count) {
+    return store.nextEvents(LocalDateTime.now(), count);
 }
 
 public void showStatistics() {
-        analytics.printStatistics(events);
+        analytics.printStatistics(store.snapshot());
     }
 
     // -------- Backup APIs --------
@@ -206,24 +389,112 @@ public void showStatistics() {
     // -------- Reminder Service --------
     private ScheduledExecutorService reminderScheduler = null;
     private ScheduledExecutorService oneShotScheduler = null; // for snoozes / one-shot tasks
-    private java.util.Set<Integer> notifiedReminders = java.util.concurrent.ConcurrentHashMap.newKeySet();
+    private NotifiedReminders notifiedReminders = new NotifiedReminders(); // id -> when its reminder fired
     private java.util.Map<Integer, ScheduledFuture<?>> snoozeTasks = new java.util.concurrent.ConcurrentHashMap<>();
 
+    // Reminder queue: a min-heap ordered by reminder time (start - reminderMinutes).
+    // Changed/deleted events leave stale entries behind; pendingReminders holds the
+    // live entry per event id and stale ones are dropped when they reach the head.
+    private static class ReminderEntry {
+        final LocalDateTime due;
+        final Event event;  // what the reminder is about (for a series: its next occurrence)
+        final Event source; // the stored event it was scheduled for
+
+        ReminderEntry(LocalDateTime due, Event event, Event source) {
+            this.due = due;
+            this.event = event;
+            this.source = source;
+        }
+    }
+
+    private final java.util.PriorityQueue<ReminderEntry> reminderQueue =
+            new java.util.PriorityQueue<>((a, b) -> a.due.compareTo(b.due));
+    private final java.util.Map<Integer, ReminderEntry> pendingReminders = new java.util.HashMap<>();
+    private ScheduledFuture<?> nextReminderTask = null;
+    private long maxReminderSleepSeconds = 60;
+
     /**
-     * Start reminder service to check for upcoming reminders every N seconds.
-     * @param intervalSeconds interval in seconds (e.g., 60)
+     * Start reminder service. It sleeps until the next reminder is due
+     * (waking at least every N seconds in case the system clock jumped).
+     * @param intervalSeconds longest sleep in seconds (e.g., 60)
      */
     public void startReminderService(long intervalSeconds) {
         if (reminderScheduler != null && !reminderScheduler.isShutdown()) return;
         reminderScheduler = Executors.newSingleThreadScheduledExecutor();
-        reminderScheduler.scheduleAtFixedRate(() -> checkReminders(), 0, Math.max(1, intervalSeconds), TimeUnit.SECONDS);
+        maxReminderSleepSeconds = Math.max(1, intervalSeconds);
+        reminderScheduler.execute(this::checkReminders);
 
         if (oneShotScheduler == null || oneShotScheduler.isShutdown()) {
             oneShotScheduler = Executors.newSingleThreadScheduledExecutor();
         }
     }
 
+    /**
+     * Queue the reminder of an event (no-op if it has none or it is already over).
+     * A recurring series is reminded of its next occurrence, found without expanding it.
+     */
+    private void scheduleReminder(Event e) {
+        scheduleReminder(e, LocalDateTime.now());
+    }
+
+    /** Queue the reminder of the first occurrence of an event that starts after the given time */
+    private void scheduleReminder(Event e, LocalDateTime after) {
+        if (e.getReminderMinutes() <= 0 || e.getStart() == null) return;
+        Event next = RecurrenceLogic.nextOccurrenceAfter(e, after);
+        if (next == null) return;
+
+        ReminderEntry entry = new ReminderEntry(next.getStart().minusMinutes(e.getReminderMinutes()), next, e);
+        boolean newHead;
+        synchronized (reminderQueue) {
+            pendingReminders.put(e.getId(), entry);
+            reminderQueue.add(entry);
+            newHead = reminderQueue.peek() == entry;
+        }
+        if (newHead) armReminderTimer(); // wake up earlier than planned
+    }
+
+    /** Forget the queued reminder of an event (its heap entry becomes stale) */
+    private void cancelReminder(Event e) {
+        synchronized (reminderQueue) {
+            ReminderEntry entry = pendingReminders.get(e.getId());
+            if (entry != null && entry.source == e) {
+                pendingReminders.remove(e.getId());
+            }
+        }
+    }
+
+    /** Rebuild the reminder queue from all events */
+    private void rebuildReminderQueue() {
+        synchronized (reminderQueue) {
+            reminderQueue.clear();
+            pendingReminders.clear();
+        }
+        for (Event e : store.snapshot()) scheduleReminder(e);
+        armReminderTimer();
+    }
+
+    /** (Re)schedule the single wake-up for the earliest queued reminder */
+    private void armReminderTimer() {
+        ScheduledExecutorService scheduler = reminderScheduler;
+        if (scheduler == null || scheduler.isShutdown()) return;
+
+        synchronized (reminderQueue) {
+            if (nextReminderTask != null) nextReminderTask.cancel(false);
+            nextReminderTask = null;
+
+            ReminderEntry head = reminderQueue.peek();
+            if (head == null) return;
+            long delayMillis = Duration.between(LocalDateTime.now(), head.due).toMillis();
+            delayMillis = Math.max(0, Math.min(delayMillis, maxReminderSleepSeconds * 1000));
+            nextReminderTask = scheduler.schedule(this::checkReminders, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
     public void stopReminderService() {
+        synchronized (reminderQueue) {
+            if (nextReminderTask != null) nextReminderTask.cancel(false);
+            nextReminderTask = null;
+        }
         if (reminderScheduler != null) {
             reminderScheduler.shutdownNow();
             reminderScheduler = null;
@@ -250,8 +521,7 @@ public void showStatistics() {
             oneShotScheduler = Executors.newSingleThreadScheduledExecutor();
         }
         ScheduledFuture<?> future = oneShotScheduler.schedule(() -> {
-            Event ev = null;
-            for (Event e : events) if (e.getId() == eventId) ev = e;
+            Event ev = findById(eventId);
             if (ev != null) {
                 triggerReminderForEvent(ev, Duration.between(LocalDateTime.now(), ev.getStart()).toMinutes());
             }
@@ -266,14 +536,16 @@ public void showStatistics() {
 
     private void triggerReminderForEvent(Event e, long mins) {
         // If already notified skip
-        if (notifiedReminders.contains(e.getId())) return;
+        Event source = findById(e.getId());
+        int reminderMinutes = source != null ? source.getReminderMinutes() : e.getReminderMinutes();
+        if (notifiedReminders.isNotified(e.getId(), e.getStart().minusMinutes(reminderMinutes))) return;
 
         ReminderDialog.Result res = performReminderDialog(e, mins);
         if (res == null) return;
 
         if (res.action == ReminderDialog.Action.DISMISS) {
-            notifiedReminders.add(e.getId());
-            FileManager.saveNotifiedReminders(notifiedReminders);
+            notifiedReminders.markFired(e.getId(), LocalDateTime.now());
+            saveNotifiedReminders();
         } else if (res.action == ReminderDialog.Action.SNOOZE) {
             scheduleSnooze(e.getId(), res.minutes);
         }
@@ -300,35 +572,44 @@ public void showStatistics() {
      */
     public void clearNotifiedReminders() {
         notifiedReminders.clear();
-        FileManager.saveNotifiedReminders(notifiedReminders);
+        saveNotifiedReminders();
+        rebuildReminderQueue(); // reminders that were already shown become due again
     }
 
     /**
-     * Remove notified reminder IDs for events whose end date is older than given days
+     * Forget notified reminders that fired more than the given number of days ago.
+     * The entries are ordered by that time, so this only touches the expired ones.
      */
     public void expireNotifiedReminders(int days) {
         LocalDateTime threshold = LocalDateTime.now().minusDays(days);
-        java.util.Set<Integer> toRemove = new java.util.HashSet<>();
-        for (Integer id : notifiedReminders) {
-            for (Event e : events) {
-                if (e.getId() == id && e.getEnd() != null && e.getEnd().isBefore(threshold)) {
-                    toRemove.add(id);
-                    break;
-                }
-            }
-        }
-        if (!toRemove.isEmpty()) {
-            notifiedReminders.removeAll(toRemove);
-            FileManager.saveNotifiedReminders(notifiedReminders);
+        if (!notifiedReminders.expireBefore(threshold).isEmpty()) {
+            saveNotifiedReminders();
         }
     }
 
+    /**
+     * Append the changes to the notified reminders to their log in the background
+     * (records of a burst of changes are appended together; if that fails they
+     * are kept and appended with the next save)
+     */
+    private CompletableFuture<Void> saveNotifiedReminders() {
+        return persistence.save("notified", () -> {
+            List<String> records = notifiedReminders.takeUnsavedRecords();
+            try {
+                FileManager.appendNotifiedReminders(records, notifiedReminders::snapshot);
+            } catch (IOException e) {
+                notifiedReminders.restoreUnsavedRecords(records);
+                throw e;
+            }
+        });
+    }
+
     /**
      * Create a one-off backup now and return the backup path or null if failed
      */
     public String backupEventsNow() {
         try {
-            String path = FileManager.backupEvents(this.events);
+            String path = FileManager.backupEvents(store.snapshot());
             System.out.println("Backup created: " + path);
             return path;
         } catch (IOException e) {
@@ -346,8 +627,11 @@ public void showStatistics() {
         try {
             String backupPath = "data/backups/" + backupFileName;
             List<Event> restoredEvents = FileManager.restoreFromBackup(backupPath);
-            this.events = new ArrayList<>(restoredEvents);
-            FileManager.saveEvents(this.events);
+            synchronized (writeLock) {
+                store.replaceAll(attachRecurrences(new ArrayList<>(restoredEvents)));
+                rebuildReminderQueue();
+                persistence.saveEvents();
+            }
             System.out.println("Restored " + restoredEvents.size() + " events from " + backupPath);
             return true;
         } catch (IOException e) {
@@ -384,16 +668,165 @@ public void showStatistics() {
      * @return conflicting event if found, null otherwise
      */
     public Event hasConflict(LocalDateTime start, LocalDateTime end, int excludeId) {
-        for (Event event : events) {
-            if (event.getId() == excludeId) continue; // Skip the event being updated
-            
-            // Check if time ranges overlap
-            // Events overlap if: start < event.end AND end > event.start
-            if (start.isBefore(event.getEnd()) && end.isAfter(event.getStart())) {
-                return event; // Found a conflict
+        // Interval index for single events, one arithmetic overlap test per recurring series
+        return store.findFirstOverlap(start, end, excludeId); // null if no conflict
+    }
+
+    /**
+     * Find every event that conflicts with the given time range
+     * @param start start time of new event
+     * @param end end time of new event
+     * @param excludeId event ID to exclude from check (use -1 to check all)
+     * @return all conflicting events ordered by start time (empty if none)
+     */
+    public List<Event> findConflicts(LocalDateTime start, LocalDateTime end, int excludeId) {
+        List<Event> conflicts = store.findOverlapping(start, end);
+        conflicts.removeIf(e -> e.getId() == excludeId);
+        conflicts.sort((e1, e2) -> e1.getStart().compareTo(e2.getStart()));
+        return conflicts;
+    }
+
+    /**
+     * Get all events that start on a date between from and to (inclusive),
+     * with recurring series expanded only inside that range.
+     * @return events sorted by start time
+     */
+    public List<Event> getEventsBetween(java.time.LocalDate from, java.time.LocalDate to) {
+        // Single events come out of the date index already in start order
+        List<Event> single = store.singleEventsBetween(from, to);
+
+        LocalDateTime windowStart = from.atStartOfDay();
+        LocalDateTime windowEnd = to.plusDays(1).atStartOfDay();
+        List<Event> occurrences = store.seriesOccurrencesBetween(windowStart, windowEnd);
+        if (occurrences.isEmpty()) return single;
+
+        // Merge the (few) recurring occurrences into the sorted single events
+        occurrences.sort((e1, e2) -> e1.getStart().compareTo(e2.getStart()));
+        List<Event> result = new ArrayList<>(single.size() + occurrences.size());
+        int i = 0, j = 0;
+        while (i < single.size() || j < occurrences.size()) {
+            if (j >= occurrences.size()
+                    || (i < single.size() && !single.get(i).getStart().isAfter(occurrences.get(j).getStart()))) {
+                result.add(single.get(i++));
+            } else {
+                result.add(occurrences.get(j++));
+            }
+        }
+        return result;
+    }
+
+    /** Get all events (including recurring occurrences) on one date, sorted by start time */
+    public List<Event> getEventsOn(java.time.LocalDate date) {
+        return getEventsBetween(date, date);
+    }
+
+    /**
+     * Search title/description for a keyword (case-insensitive "contains")
+     * @return matching events ordered by id
+     */
+    public List<Event> searchByKeyword(String keyword) {
+        return store.searchByKeyword(keyword);
+    }
+
+    /** Events whose title/description contain every word of the query */
+    public List<Event> searchByAllWords(String query) {
+        return store.searchByAllWords(query);
+    }
+
+    /** Events whose title/description contain at least one word of the query */
+    public List<Event> searchByAnyWord(String query) {
+        return store.searchByAnyWord(query);
+    }
+
+    // -------- Persistence helpers --------
+
+    /**
+     * Cancel the reminder of a removed event and drop its recurrence and
+     * additional fields (caller holds writeLock)
+     * @return the journal record for the deletion
+     */
+    private String forgetEvent(Event e) {
+        cancelReminder(e);
+        if (EventStore.isSeries(e)) {
+            persistence.task(() -> FileManager.deleteRecurrence(e.getId()));
+        }
+        if (additionalFields.remove(e.getId()) != null) {
+            saveAdditionalFields(); // coalesced, so a batch of deletes still rewrites the file once
+        }
+        return FileManager.journalDeleteRecord(e);
+    }
+
+    /** Journal the removal of several events as one batch (caller holds writeLock) */
+    private CompletableFuture<Void> persistRemoved(List<Event> removed) {
+        if (removed.isEmpty()) return CompletableFuture.completedFuture(null);
+        List<String> records = new ArrayList<>(removed.size());
+        for (Event event : removed) {
+            records.add(forgetEvent(event));
+        }
+        return persistence.journal(FileManager.journalBatch(records));
+    }
+
+    /** Completes when every change made so far is on disk */
+    public CompletableFuture<Void> flushChanges() {
+        return persistence.flush();
+    }
+
+    /** Write any queued changes and stop the background writer (call before exiting) */
+    public void stopPersistence() {
+        persistence.stop();
+    }
+
+    /**
+     * Attach the recurrences from recurrent.csv to their series events.
+     * Older versions stored every occurrence as its own row as well; when those
+     * rows are all still present they are folded back into the single series event.
+     * @param events freshly loaded events (changed in place)
+     * @return the same list
+     */
+    private List<Event> attachRecurrences(List<Event> events) {
+        java.util.Map<Integer, Recurrence> recurrences = FileManager.loadRecurrences();
+        if (recurrences.isEmpty()) return events;
+        // A rule whose event never reached the journal (crash in between) must not
+        // be picked up by a later event that gets the same id
+        store.markIdsUsed(java.util.Collections.max(recurrences.keySet()));
+
+        boolean migrated = false;
+        for (Event series : new ArrayList<>(events)) {
+            Recurrence recurrence = recurrences.get(series.getId());
+            if (recurrence == null || !recurrence.isRecurring() || !events.contains(series)) continue;
+
+            // Rows that look like materialized occurrences of this series
+            // (an occurrence day at the series' time of day; checked without expanding the series)
+            LocalDateTime first = series.getStart();
+            List<Event> copies = new ArrayList<>();
+            for (Event e : events) {
+                if (e != series && e.getTitle().equals(series.getTitle()) && e.getStart() != null
+                        && e.getStart().toLocalTime().equals(first.toLocalTime())
+                        && recurrence.isOccurrence(first, e.getStart().toLocalDate())) {
+                    copies.add(e);
+                }
+            }
+
+            if (copies.isEmpty()) {
+                series.setRecurrence(recurrence);
+            } else if (copies.size() == recurrence.occurrenceCount(first) - 1) {
+                events.removeAll(copies);
+                series.setRecurrence(recurrence);
+                migrated = true;
             }
+            // Otherwise some occurrences were edited or deleted individually: keep them as plain events
         }
-        return null; // No conflict
+
+        if (migrated) {
+            System.out.println("Folded stored recurring occurrences back into their series.");
+            try {
+                FileManager.saveEvents(events); // written right away: the store isn't filled yet
+            } catch (IOException e) {
+                // The old rows stay on disk and are folded again on the next start
+                System.out.println("Error saving file: " + e.getMessage());
+            }
+        }
+        return events;
     }
 
 
@@ -442,22 +875,56 @@ public void showStatistics() {
   
     // ================ ADDITIONAL FIELDS MANAGEMENT ================
     
-    public void addAdditionalFields(int eventId, AdditionalFields fields) {
-        additionalFieldsMap.put(eventId, fields);
-        FileManager.saveAdditionalFields(additionalFieldsMap);
+    public CompletableFuture<Void> addAdditionalFields(int eventId, AdditionalFields fields) {
+        additionalFields.put(eventId, fields);
+        return saveAdditionalFields();
+    }
+
+    /** Write additional.csv in the background (a burst of changes is written once) */
+    private CompletableFuture<Void> saveAdditionalFields() {
+        return persistence.save("additional", () -> FileManager.saveAdditionalFields(additionalFields.asMap()));
     }
     
     public AdditionalFields getAdditionalFields(int eventId) {
-        return additionalFieldsMap.get(eventId);
+        return additionalFields.get(eventId);
     }
     
+    /** Read-only view of every event's additional fields */
     public java.util.Map<Integer, AdditionalFields> getAllAdditionalFields() {
-        return additionalFieldsMap;
+        return additionalFields.asMap();
+    }
+
+    /** The additional fields with their category/priority/location indexes */
+    public AdditionalFieldsIndex getAdditionalFieldsIndex() {
+        return additionalFields;
+    }
+
+    /**
+     * Search location/category/priority for a keyword (case-insensitive "contains")
+     * Only the matching ids are looked up, the event list is not walked.
+     * @return matching events in id order
+     */
+    public List<Event> searchByAdditionalFields(String keyword) {
+        return store.findByIds(additionalFields.matching(keyword));
+    }
+
+    /**
+     * Single events between two dates (inclusive) with the given category and/or
+     * priority (null = any), found by intersecting the index BitSets with the
+     * ids from the date index
+     * @return matching events sorted by start time
+     */
+    public List<Event> singleEventsBetween(java.time.LocalDate from, java.time.LocalDate to, String category, String priority) {
+        List<Event> inRange = store.singleEventsBetween(from, to);
+        java.util.BitSet ids = SearchUtils.idsOf(inRange);
+        if (category != null) ids.and(additionalFields.withCategory(category));
+        if (priority != null) ids.and(additionalFields.withPriority(priority));
+        return SearchUtils.filterByIds(inRange, ids);
     }
     
     public String backupAdditionalFieldsNow() {
         try {
-            String path = FileManager.backupAdditionalFields(additionalFieldsMap);
+            String path = FileManager.backupAdditionalFields(additionalFields.asMap());
             System.out.println("Additional fields backup created: " + path);
             return path;
         } catch (IOException e) {
@@ -469,8 +936,8 @@ public void showStatistics() {
     public boolean restoreAdditionalFieldsFromBackup(String backupFileName) {
         try {
             String backupPath = "data/backups/" + backupFileName;
-            additionalFieldsMap = FileManager.restoreAdditionalFields(backupPath);
-            FileManager.saveAdditionalFields(additionalFieldsMap);
+            additionalFields.replaceAll(FileManager.restoreAdditionalFields(backupPath));
+            saveAdditionalFields();
             System.out.println("Restored additional fields from " + backupPath);
             return true;
         } catch (IOException e) {
@@ -12,7 +12,10 @@ public class SearchUtils {
             LocalDateTime newEnd) {
 
         for (Event event : events) {
-            if (newStart.isBefore(event.getEnd()) &&
+            if (event.getRecurrence() != null && event.getRecurrence().isRecurring()) {
+                // Checked arithmetically, the series is not expanded
+                if (RecurrenceLogic.findOverlappingOccurrence(event, newStart, newEnd) != null) return false; // Conflict found
+            } else if (newStart.isBefore(event.getEnd()) &&
                 newEnd.isAfter(event.getStart())) {
                 return false; // Conflict found
             }
@@ -20,6 +23,36 @@ public class SearchUtils {
         return true; // No conflict
     }
 
+    /**
+     * Check a time slot against an interval index instead of scanning every event
+     * @param index Interval index of the events (e.g. the one kept by EventStore)
+     * @param newStart Start of the proposed slot
+     * @param newEnd End of the proposed slot
+     * @return true if nothing overlaps the slot
+     */
+    public static boolean isTimeSlotFree(
+            EventIntervalTree index,
+            LocalDateTime newStart,
+            LocalDateTime newEnd) {
+
+        return index.findFirstOverlap(newStart, newEnd, -1) == null;
+    }
+
+    /**
+     * Find all events that overlap a time slot
+     * @param index Interval index of the events
+     * @param newStart Start of the proposed slot
+     * @param newEnd End of the proposed slot
+     * @return overlapping events ordered by start time
+     */
+    public static List<Event> findConflicts(
+            EventIntervalTree index,
+            LocalDateTime newStart,
+            LocalDateTime newEnd) {
+
+        return index.findOverlapping(newStart, newEnd);
+    }
+
     
     public static List<Event> searchByKeyword(
             List<Event> events,
@@ -36,19 +69,46 @@ public class SearchUtils {
         return result;
     }
 
+    /**
+     * Keyword search through the inverted index (same matches as the list version)
+     * @param index Keyword index of the events
+     * @param keyword Text to look for in title or description
+     * @return matching events ordered by id
+     */
+    public static List<Event> searchByKeyword(
+            KeywordIndex index,
+            String keyword) {
+
+        return index.findContaining(keyword);
+    }
+
+    /**
+     * Events containing every word of the query (e.g. "team meeting")
+     */
+    public static List<Event> searchByAllWords(
+            KeywordIndex index,
+            String query) {
+
+        return index.findAllWords(query);
+    }
+
+    /**
+     * Events containing at least one word of the query
+     */
+    public static List<Event> searchByAnyWord(
+            KeywordIndex index,
+            String query) {
+
+        return index.findAnyWord(query);
+    }
+
    
     public static List<Event> searchByDate(
             List<Event> events,
             LocalDate date) {
 
-        List<Event> result = new ArrayList<>();
-
-        for (Event event : events) {
-            if (event.getStart().toLocalDate().equals(date)) {
-                result.add(event);
-            }
-        }
-        return result;
+        // Same as a one-day range; recurring events contribute their occurrence on that day
+        return searchByDateRange(events, date, date);
     }
 
     /**
@@ -64,8 +124,15 @@ public class SearchUtils {
             LocalDate endDate) {
 
         List<Event> result = new ArrayList<>();
+        LocalDateTime from = startDate.atStartOfDay();
+        LocalDateTime to = endDate.plusDays(1).atStartOfDay();
 
         for (Event event : events) {
+            if (event.getRecurrence() != null && event.getRecurrence().isRecurring()) {
+                // Expand only the occurrences inside the range
+                RecurrenceLogic.occurrencesBetween(event, from, to).forEach(result::add);
+                continue;
+            }
             LocalDate eventDate = event.getStart().toLocalDate();
             // Check if event date is within range (inclusive)
             if (!eventDate.isBefore(startDate) && !eventDate.isAfter(endDate)) {
@@ -75,6 +142,41 @@ public class SearchUtils {
         return result;
     }
     
+    /**
+     * Search events on one date using a date index
+     * @param dateIndex Events bucketed by start date, each day sorted by start time
+     * @param date Date to look up
+     * @return events on that date, sorted by start time
+     */
+    public static List<Event> searchByDate(
+            java.util.NavigableMap<LocalDate, List<Event>> dateIndex,
+            LocalDate date) {
+
+        List<Event> day = dateIndex.get(date);
+        return day == null ? new ArrayList<>() : new ArrayList<>(day);
+    }
+
+    /**
+     * Search events within a date range (inclusive) using a date index.
+     * Only the days inside the range are visited.
+     * @param dateIndex Events bucketed by start date, each day sorted by start time
+     * @param startDate Start of the date range
+     * @param endDate End of the date range
+     * @return events in the range, sorted by start time (empty if startDate is after endDate, like the list version)
+     */
+    public static List<Event> searchByDateRange(
+            java.util.NavigableMap<LocalDate, List<Event>> dateIndex,
+            LocalDate startDate,
+            LocalDate endDate) {
+
+        List<Event> result = new ArrayList<>();
+        if (startDate.isAfter(endDate)) return result; // subMap would throw IllegalArgumentException
+        for (List<Event> day : dateIndex.subMap(startDate, true, endDate, true).values()) {
+            result.addAll(day);
+        }
+        return result;
+    }
+    
     /**
      * Search events by additional fields (location, category, priority)
      * @param events List of events
@@ -89,17 +191,79 @@ public class SearchUtils {
         
         List<Event> result = new ArrayList<>();
         String lowerKeyword = keyword.toLowerCase();
-        
+
+        // Standard categories/priorities: decide once per value instead of once per event
+        AdditionalFields.Category[] categories = AdditionalFields.Category.values();
+        boolean[] categoryMatches = new boolean[categories.length];
+        for (AdditionalFields.Category c : categories) categoryMatches[c.ordinal()] = c.lowerLabel().contains(lowerKeyword);
+        AdditionalFields.Priority[] priorities = AdditionalFields.Priority.values();
+        boolean[] priorityMatches = new boolean[priorities.length];
+        for (AdditionalFields.Priority p : priorities) priorityMatches[p.ordinal()] = p.lowerLabel().contains(lowerKeyword);
+
         for (Event event : events) {
             AdditionalFields fields = fieldsMap.get(event.getId());
             if (fields != null) {
-                if (fields.getLocation().toLowerCase().contains(lowerKeyword) ||
-                    fields.getCategory().toLowerCase().contains(lowerKeyword) ||
-                    fields.getPriority().toLowerCase().contains(lowerKeyword)) {
+                AdditionalFields.Category category = fields.getCategoryCode();
+                AdditionalFields.Priority priority = fields.getPriorityCode();
+                if ((category != null ? categoryMatches[category.ordinal()] : containsIgnoreCase(fields.getCategory(), lowerKeyword)) ||
+                    (priority != null ? priorityMatches[priority.ordinal()] : containsIgnoreCase(fields.getPriority(), lowerKeyword)) ||
+                    containsIgnoreCase(fields.getLocation(), lowerKeyword)) {
                     result.add(event);
                 }
             }
         }
         return result;
     }
+
+    /**
+     * Search events by additional fields using the secondary indexes: the
+     * keyword is compared with each distinct location/category/priority once,
+     * then the events are kept by a BitSet lookup on their id.
+     * Same result as the Map version.
+     * @param events List of events
+     * @param index Additional fields with their indexes
+     * @param keyword Keyword to search
+     * @return List of matching events
+     */
+    public static List<Event> searchByAdditionalFields(
+            List<Event> events,
+            AdditionalFieldsIndex index,
+            String keyword) {
+
+        return filterByIds(events, index.matching(keyword));
+    }
+
+    /**
+     * Ids of a list of events, to combine a search with others by BitSet
+     * intersection, e.g. the Work events of a week:
+     *   BitSet ids = index.withCategory("Work");
+     *   ids.and(idsOf(weekEvents));
+     * Events with a negative id are left out.
+     */
+    public static java.util.BitSet idsOf(java.util.Collection<Event> events) {
+        java.util.BitSet ids = new java.util.BitSet();
+        for (Event e : events) {
+            if (e != null && e.getId() >= 0) ids.set(e.getId());
+        }
+        return ids;
+    }
+
+    /** The events whose id is in the set, in their order */
+    public static List<Event> filterByIds(List<Event> events, java.util.BitSet ids) {
+        List<Event> result = new ArrayList<>();
+        if (ids.isEmpty()) return result;
+        for (Event e : events) {
+            if (e != null && e.getId() >= 0 && ids.get(e.getId())) result.add(e);
+        }
+        return result;
+    }
+
+    /** text.toLowerCase().contains(lowerKeyword), without making a lower-case copy of text */
+    private static boolean containsIgnoreCase(String text, String lowerKeyword) {
+        int last = text.length() - lowerKeyword.length();
+        for (int i = 0; i <= last; i++) {
+            if (text.regionMatches(true, i, lowerKeyword, 0, lowerKeyword.length())) return true;
+        }
+        return false;
+    }
 }
@@ -0,0 +1,51 @@
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * StringPool makes equal strings share one String object (interning), for
+ * the text that repeats across many events: titles, categories, priorities,
+ * locations. Loading 100k events with 40 different titles then keeps 40
+ * title strings instead of 100k.
+ *
+ * The pool only holds weak references: a string that no event uses any
+ * more is garbage collected as usual and drops out of the pool.
+ *
+ * Long strings (over MAX_LENGTH chars, e.g. most descriptions) are
+ * returned as they are: they rarely repeat, and a pool entry costs about
+ * as much as a short string.
+ */
+public class StringPool {
+
+    private static final int MAX_LENGTH = 64;
+
+    // key and value are the same string; the value is what gets handed out
+    private static final Map<String, WeakReference<String>> POOL = new WeakHashMap<>();
+
+    private StringPool() {
+    }
+
+    /**
+     * The pooled string equal to text (text itself if it is the first one)
+     * @return null for null, "" for any empty string
+     */
+    public static String intern(String text) {
+        if (text == null || text.length() > MAX_LENGTH) return text;
+        if (text.isEmpty()) return "";
+
+        synchronized (POOL) {
+            WeakReference<String> ref = POOL.get(text);
+            String pooled = ref != null ? ref.get() : null;
+            if (pooled != null) return pooled;
+            POOL.put(text, new WeakReference<>(text));
+            return text;
+        }
+    }
+
+    /** Number of strings currently in the pool */
+    public static int size() {
+        synchronized (POOL) {
+            return POOL.size();
+        }
+    }
+}
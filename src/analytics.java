@@ -10,6 +10,10 @@ import java.util.Optional;
 
 /**
  * Analytics class provides statistics about events in the calendar.
+ * The methods below count every entry of the list once, so a recurring series
+ * stored as one event counts once; pass expanded occurrences (e.g. from
+ * RecurrenceLogic.generateRecurringEvents) to count each of them.
+ * snapshot() / AnalyticsSnapshot counts every occurrence by itself.
  */
 public class analytics {
 
@@ -155,6 +159,47 @@ public class analytics {
         return counts;
     }
 
+    /**
+     * Count events by category using the category index: one BitSet
+     * intersection per category instead of a lookup per event.
+     * Gives the same counts as the Map version.
+     */
+    public static Map<String, Integer> eventsByCategory(List<Event> events, AdditionalFieldsIndex index) {
+        if (events == null || index == null) return new HashMap<>();
+        java.util.BitSet ids = SearchUtils.idsOf(events);
+        if (!countsEachEventOnce(events, ids)) return eventsByCategory(events, index.asMap());
+        return withMissing(index.categoryCounts(ids), ids.cardinality(), "No Category");
+    }
+
+    /** Count events by priority using the priority index */
+    public static Map<String, Integer> eventsByPriority(List<Event> events, AdditionalFieldsIndex index) {
+        if (events == null || index == null) return new HashMap<>();
+        java.util.BitSet ids = SearchUtils.idsOf(events);
+        if (!countsEachEventOnce(events, ids)) return eventsByPriority(events, index.asMap());
+        return withMissing(index.priorityCounts(ids), ids.cardinality(), "No Priority");
+    }
+
+    /**
+     * The id set only works for counting if every event has its own id
+     * (not so for expanded occurrences: those of generateRecurringEvents all have
+     * id 0, those of RecurrenceLogic.occurrencesBetween keep the id of their series)
+     */
+    private static boolean countsEachEventOnce(List<Event> events, java.util.BitSet ids) {
+        int counted = 0;
+        for (Event e : events) {
+            if (e != null) counted++;
+        }
+        return counted == ids.cardinality();
+    }
+
+    /** Add the events that are in no bucket under the given name */
+    private static Map<String, Integer> withMissing(Map<String, Integer> counts, int total, String missingName) {
+        int inBuckets = 0;
+        for (int count : counts.values()) inBuckets += count;
+        if (total > inBuckets) counts.merge(missingName, total - inBuckets, Integer::sum);
+        return counts;
+    }
+
     /** Count upcoming vs past events */
     public static Map<String, Integer> upcomingVsPastEvents(List<Event> events) {
         Map<String, Integer> counts = new HashMap<>();
@@ -199,23 +244,30 @@ public class analytics {
         return counts;
     }
 
+    /**
+     * All statistics in one pass (see AnalyticsSnapshot); prefer this over
+     * calling the methods above one by one
+     */
+    public static AnalyticsSnapshot snapshot(List<Event> events, Map<Integer, AdditionalFields> additionalFieldsMap) {
+        return AnalyticsSnapshot.compute(events, additionalFieldsMap);
+    }
+
     /** Print an extended statistics summary */
     public static void printStatistics(List<Event> events) {
+        AnalyticsSnapshot stats = snapshot(events, null);
         System.out.println("=== Calendar Statistics ===");
-        System.out.println("Total Events: " + (events == null ? 0 : events.size()));
-        System.out.println("Busiest Day of the Week: " + busiestDayOfWeek(events));
-        int hr = busiestHour(events);
+        System.out.println("Total Events: " + stats.getTotalEvents());
+        System.out.println("Busiest Day of the Week: " + stats.busiestDayOfWeek());
+        int hr = stats.busiestHour();
         System.out.println("Busiest Hour: " + (hr >= 0 ? hr + ":00" : "N/A"));
-        System.out.println("Busiest Month: " + busiestMonth(events));
-        System.out.printf("Average Events per Week: %.2f\n", averageEventsPerWeek(events));
-        Event longest = longestEvent(events);
+        System.out.println("Busiest Month: " + stats.busiestMonth());
+        System.out.printf("Average Events per Week: %.2f\n", stats.averageEventsPerWeek());
+        Event longest = stats.longestEvent();
         if (longest != null) {
-            long mins = Duration.between(longest.getStart(), longest.getEnd()).toMinutes();
-            System.out.println("Longest Event: " + longest.getTitle() + " (" + mins + " minutes)");
+            System.out.println("Longest Event: " + longest.getTitle() + " (" + stats.longestEventMinutes() + " minutes)");
         } else {
             System.out.println("Longest Event: N/A");
         }
-        Map<String,Integer> counts = countRecurringVsSingle(events);
-        System.out.println("Recurring Events: " + counts.get("recurring") + ", Single Events: " + counts.get("single"));
+        System.out.println("Recurring Events: " + stats.recurringCount() + ", Single Events: " + stats.singleCount());
     }
 }
\ No newline at end of file